@@ -0,0 +1,45 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp;
+
+import java.util.Locale;
+
+/**
+ * Built-in policies of alive test on connections
+ *
+ * @author Chris Liao
+ */
+public final class AliveTestPolicy {
+
+    //test with method 'isValid' if driver supports it,otherwise test with sql in a rollback transaction
+    public static final String POLICY_AUTO = "AUTO";
+
+    //test with method 'isValid' of connection,driver native ping in most drivers
+    public static final String POLICY_IS_VALID = "IS_VALID";
+
+    //test with sql on a new statement in a rollback transaction(auto-commit is switched off during test)
+    public static final String POLICY_SQL = "SQL";
+
+    //test with sql on a statement cached in connection and auto-commit not switched,test sql must be read only
+    public static final String POLICY_CACHED_SQL = "CACHED_SQL";
+
+    //not test,connections are assumed in alive(trusted network)
+    public static final String POLICY_NONE = "NONE";
+
+    static final String POLICY_NAME_LIST = POLICY_AUTO + "," + POLICY_IS_VALID + "," + POLICY_SQL + "," + POLICY_CACHED_SQL + "," + POLICY_NONE;
+
+    static String getPolicyName(String name) {
+        String policyName = name.toUpperCase(Locale.US);
+        if (POLICY_AUTO.equals(policyName) || POLICY_IS_VALID.equals(policyName) || POLICY_SQL.equals(policyName)
+                || POLICY_CACHED_SQL.equals(policyName) || POLICY_NONE.equals(policyName))
+            return policyName;
+        return null;
+    }
+}
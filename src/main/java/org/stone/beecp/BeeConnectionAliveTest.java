@@ -0,0 +1,26 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Alive test on connections before borrowed out or in background,an implementation set to configuration
+ * replaces built-in policies{@link AliveTestPolicy}
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+public interface BeeConnectionAliveTest {
+
+    //return true if raw connection is alive;false or throws an exception when it is dead,timeout is in seconds
+    boolean isAlive(Connection rawConn, int timeout) throws SQLException;
+}
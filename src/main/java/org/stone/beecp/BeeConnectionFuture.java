@@ -0,0 +1,32 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp;
+
+import java.sql.Connection;
+import java.util.concurrent.Future;
+
+/**
+ * A future returned from asynchronous borrowing{@link BeeConnectionPool#getConnectionAsync},its result is a borrowed
+ * connection or a sql-typed exception(wrapped in {@link java.util.concurrent.ExecutionException} by get methods).
+ * Future may be completed in a thread releasing connection or in pool servant thread,so registered listeners should
+ * be lightweight and not block.
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+public interface BeeConnectionFuture extends Future<Connection> {
+
+    /**
+     * Registers a listener to be run once this future done,if already done,then run it immediately in caller thread.
+     *
+     * @param listener is a runnable called on completion of future
+     */
+    void addListener(Runnable listener);
+}
@@ -57,6 +57,15 @@ public interface BeeConnectionPool {
      */
     XAConnection getXAConnection() throws SQLException;
 
+    /**
+     * Borrows a connection without blocking caller thread.If no idle connection in pool,the returned future waits
+     * in pool queue and completed directly by a thread releasing connection or by pool servant thread creating new
+     * connection,if not completed within {@code maxWait} time,then it completes with a timeout sql-typed exception.
+     *
+     * @return a future of borrowed connection
+     */
+    BeeConnectionFuture getConnectionAsync();
+
     /**
      * Method invocation to shut down pool,there is a thead-safe control,only one thread success call
      * it at concurrent,the pool state mark to be closed and rejects coming requests with a exception.
@@ -95,6 +104,17 @@ public interface BeeConnectionPool {
      */
     void interruptThreadsOnCreationLock();
 
+    /**
+     * Blocks caller thread until size of pooled connections reach the given size or wait timeout,
+     * application can gate its readiness on a partially warmed pool(initial connections created in async mode).
+     *
+     * @param size          is expected size of pooled connections,if greater than {@code maxActive},then wait to max
+     * @param timeoutMillis is max wait time in milliseconds
+     * @return a boolean,true that size of pooled connections has reached the expected size
+     * @throws SQLException when interrupted during waiting
+     */
+    boolean awaitConnectionReady(int size, long timeoutMillis) throws SQLException;
+
     /**
      * Removes all pooled connections,this method should work under synchronization control,success caller update
      * pool state from {@code ConnectionPoolStatics.POOL_READY} to {@code ConnectionPoolStatics.POOL_CLEARING} and
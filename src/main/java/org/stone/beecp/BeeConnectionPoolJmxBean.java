@@ -38,6 +38,12 @@ public interface BeeConnectionPoolJmxBean {
     //return waiter size for transferred connection
     int getTransferWaitingSize();
 
+    //return state of circuit breaker on connection creation,value is one of[closed,open,half-open]
+    String getCreationBreakerState();
+
+    //return count of transitions to open state of circuit breaker on connection creation
+    long getCreationBreakerOpenCount();
+
     //set pool info debug switch
     void setPrintRuntimeLog(boolean indicator);
 
@@ -42,4 +42,36 @@ public interface BeeConnectionPoolMonitorVo {
     int getSemaphoreWaitingSize();
 
     int getTransferWaitingSize();
+
+    long getThreadLocalHitCount();
+
+    long getThreadLocalMissCount();
+
+    int getBorrowSemaphoreSize();
+
+    long getSemaphoreIncreasedCount();
+
+    long getSemaphoreDecreasedCount();
+
+    long getStatementCacheHitCount();
+
+    long getStatementCacheMissCount();
+
+    long getStatementCacheEvictionCount();
+
+    String getAliveTestPolicy();
+
+    long getAliveTestCount();
+
+    long getAliveTestFailedCount();
+
+    long getAliveTestNanos();
+
+    long getKeepaliveCount();
+
+    long getKeepaliveFailedCount();
+
+    String getCreationBreakerState();
+
+    long getCreationBreakerOpenCount();
 }
@@ -106,6 +106,11 @@ public class BeeDataSource extends BeeDataSourceConfig implements DataSource, XA
         return createPoolByLock().getXAConnection();
     }
 
+    public final BeeConnectionFuture getConnectionAsync() throws SQLException {
+        if (this.ready) return pool.getConnectionAsync();
+        return createPoolByLock().getConnectionAsync();
+    }
+
     private BeeConnectionPool createPoolByLock() throws SQLException {
         if (!lock.isWriteLocked() && lock.writeLock().tryLock()) {
             try {
@@ -219,6 +224,12 @@ public class BeeDataSource extends BeeDataSourceConfig implements DataSource, XA
         this.pool.interruptThreadsOnCreationLock();
     }
 
+    //blocks until size of pooled connections reach the given size or timeout
+    public boolean awaitConnectionReady(int size, long timeoutMillis) throws SQLException {
+        if (this.pool == null) throw new PoolNotCreatedException("Connection pool not initialized");
+        return this.pool.awaitConnectionReady(size, timeoutMillis);
+    }
+
     public void clear(boolean forceCloseUsing) throws SQLException {
         if (this.pool == null) throw new PoolNotCreatedException("Connection pool not initialized");
         this.pool.clear(forceCloseUsing);
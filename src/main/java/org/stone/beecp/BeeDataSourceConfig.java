@@ -64,6 +64,34 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     private int maxActive = Math.min(Math.max(10, NCPU), 50);
     //permit size of pool semaphore
     private int borrowSemaphoreSize = Math.min(this.maxActive / 2, NCPU);
+    //indicator on resizing permits of pool semaphore at runtime by feedback of borrow latency and waiting size
+    private boolean enableAdaptiveSemaphore;
+    //min permit size of pool semaphore in adaptive mode
+    private int minBorrowSemaphoreSize = 1;
+    //max permit size of pool semaphore in adaptive mode,if not set,then use value of maxActive
+    private int maxBorrowSemaphoreSize;
+    //milliseconds: interval of resizing permits of pool semaphore in adaptive mode
+    private long semaphoreAdjustInterval = 1000L;
+    //max size of used connections cached in threadLocal of borrowers,which can be held again without semaphore
+    private int threadLocalCacheSize = 2;
+    //indicator on caching borrowers in threadLocal,set false when borrowers are massive short-lived virtual threads
+    private boolean enableThreadLocal = true;
+    //indicator on resetting dirty returned connections and closing removed connections on pool threads,then close() of application returns at once
+    private boolean enableAsyncReset;
+    //max size of threads creating connections concurrently(driver connects run outside of pool lock)
+    private int maxConcurrentCreation = 1;
+    //consecutive creation failures to open circuit breaker on creation,then creation fails fast until a background probe succeeds,zero means breaker disabled
+    private int creationFailureThreshold;
+    //milliseconds:max interval of background probes while circuit breaker is open,interval doubles from 500 milliseconds with a random jitter
+    private long creationProbeMaxInterval = 30000L;
+    //selection policy on idle connections,value is one of[STRIPED,LOWEST_SLOT,ROUND_ROBIN],ordered by slot position
+    private String idleSelectPolicy = IdleSelectPolicy.POLICY_STRIPED;
+    //max size of prepared statements cached in a pooled connection,zero means not cache
+    private int statementCacheSize;
+    //indicator on generating proxy classes typed to driver classes at pool startup(javassist is required at runtime)
+    private boolean enableDriverSpecializedProxy;
+    //milliseconds:resolution of pool clock read on access time updates and timeout checks,zero means read system clock directly
+    private long clockResolution;
     //milliseconds:max wait time of a borrower to get a idle connection from pool,if not get one,then throws an exception
     private long maxWait = SECONDS.toMillis(8);
     //seconds: maximum time in seconds that connection factory{@code RawConnectionFactory RawXaConnectionFactory} will wait
@@ -76,6 +104,8 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     private long idleTimeout = MINUTES.toMillis(3);
     //milliseconds:max hold time and not be active on borrowed connections,which may be force released to pool if this value greater than zero
     private long holdTimeout;
+    //milliseconds:max lifetime of connections from creation,which are replaced by new ones after expired(a random jitter within a tenth of it),zero means not limited
+    private long maxLifetime;
 
     //an alive test sql running on borrowed connections,if dead remove them from pool
     private String aliveTestSql = "SELECT 1";
@@ -83,6 +113,14 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     private int aliveTestTimeout = 3;
     //milliseconds:max gap time between last activity time and borrowed time point,if less this gap value,assume connections in alive state,otherwise test them
     private long aliveAssumeTime = 500L;
+    //milliseconds:interval of background alive test on idle connections before they exceed alive assume time,zero means not test in background
+    private long idleAliveTestInterval;
+    //max size of threads running alive test on idle connections in background
+    private int maxConcurrentAliveTest = 1;
+    //milliseconds:idle connections are pinged by alive test when idle over this time,keep them from idle drops of network devices,zero means not ping
+    private long keepaliveTime;
+    //built-in policy of alive test on connections,value is one of[AUTO,IS_VALID,SQL,CACHED_SQL,NONE]
+    private String aliveTestPolicy = AliveTestPolicy.POLICY_AUTO;
     //milliseconds:working interval time of a timer thread to scan idle-timeout connections and hold-timeout connections
     private long timerCheckInterval = MINUTES.toMillis(3);
     //indicator to whether force close using connections when pool clears connections
@@ -93,6 +131,8 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     private List<Integer> sqlExceptionCodeList;
     //store some fatal sql exception state(@see field SQLState in SQLException class),if one of these state contains in SQLException thrown from borrowed out connections,then remove them from pool
     private List<String> sqlExceptionStateList;
+    //indicator on eviction of all connections created before a server-wide fatal error(server shutdown,restart or failover),which is resolved by database product
+    private boolean enableServerFatalEviction;
 
     //default value set on property catalog of new connections,@see set method{@code Connection.setCatalog(String)}
     private String defaultCatalog;
@@ -122,6 +162,9 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     private boolean forceDirtyOnSchemaAfterSet;
     //put a dirty flag on catalog when invocation success at method {@code Connection.setCatalog()}and ignore changed or not on catalog
     private boolean forceDirtyOnCatalogAfterSet;
+    //indicator on caching session properties(autoCommit,transactionIsolation,readOnly,catalog,schema)in pooled connections,then setting a same value
+    //not call driver and getters read cached values,not set it true when these properties are changed by sql statements
+    private boolean enableSessionStateCache;
 
     //thread factory class(creation order-2 )
     private Class threadFactoryClass;
@@ -149,6 +192,12 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     private String sqlExceptionPredicationClassName;
     //sql exception predication instance
     private SQLExceptionPredication sqlExceptionPredication;
+    //alive test class,which replaces built-in alive test policies
+    private Class aliveTestClass;
+    //alive test class name
+    private String aliveTestClassName;
+    //alive test instance
+    private BeeConnectionAliveTest aliveTest;
 
     //encryption decoder class on jdbc link info
     private Class jdbcLinkInfoDecoderClass;
@@ -303,6 +352,123 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         if (borrowSemaphoreSize > 0) this.borrowSemaphoreSize = borrowSemaphoreSize;
     }
 
+    public boolean isEnableAdaptiveSemaphore() {
+        return this.enableAdaptiveSemaphore;
+    }
+
+    public void setEnableAdaptiveSemaphore(boolean enableAdaptiveSemaphore) {
+        this.enableAdaptiveSemaphore = enableAdaptiveSemaphore;
+    }
+
+    public int getMinBorrowSemaphoreSize() {
+        return this.minBorrowSemaphoreSize;
+    }
+
+    public void setMinBorrowSemaphoreSize(int minBorrowSemaphoreSize) {
+        if (minBorrowSemaphoreSize > 0) this.minBorrowSemaphoreSize = minBorrowSemaphoreSize;
+    }
+
+    public int getMaxBorrowSemaphoreSize() {
+        return this.maxBorrowSemaphoreSize;
+    }
+
+    public void setMaxBorrowSemaphoreSize(int maxBorrowSemaphoreSize) {
+        if (maxBorrowSemaphoreSize > 0) this.maxBorrowSemaphoreSize = maxBorrowSemaphoreSize;
+    }
+
+    public long getSemaphoreAdjustInterval() {
+        return this.semaphoreAdjustInterval;
+    }
+
+    public void setSemaphoreAdjustInterval(long semaphoreAdjustInterval) {
+        if (semaphoreAdjustInterval > 0L) this.semaphoreAdjustInterval = semaphoreAdjustInterval;
+    }
+
+    public int getThreadLocalCacheSize() {
+        return this.threadLocalCacheSize;
+    }
+
+    public void setThreadLocalCacheSize(int threadLocalCacheSize) {
+        if (threadLocalCacheSize > 0) this.threadLocalCacheSize = threadLocalCacheSize;
+    }
+
+    public boolean isEnableThreadLocal() {
+        return this.enableThreadLocal;
+    }
+
+    public void setEnableThreadLocal(boolean enableThreadLocal) {
+        this.enableThreadLocal = enableThreadLocal;
+    }
+
+    public boolean isEnableAsyncReset() {
+        return this.enableAsyncReset;
+    }
+
+    public void setEnableAsyncReset(boolean enableAsyncReset) {
+        this.enableAsyncReset = enableAsyncReset;
+    }
+
+    public int getMaxConcurrentCreation() {
+        return this.maxConcurrentCreation;
+    }
+
+    public void setMaxConcurrentCreation(int maxConcurrentCreation) {
+        if (maxConcurrentCreation > 0) this.maxConcurrentCreation = maxConcurrentCreation;
+    }
+
+    public int getCreationFailureThreshold() {
+        return this.creationFailureThreshold;
+    }
+
+    public void setCreationFailureThreshold(int creationFailureThreshold) {
+        if (creationFailureThreshold >= 0) this.creationFailureThreshold = creationFailureThreshold;
+    }
+
+    public long getCreationProbeMaxInterval() {
+        return this.creationProbeMaxInterval;
+    }
+
+    public void setCreationProbeMaxInterval(long creationProbeMaxInterval) {
+        if (creationProbeMaxInterval > 0L) this.creationProbeMaxInterval = creationProbeMaxInterval;
+    }
+
+    public int getStatementCacheSize() {
+        return this.statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize >= 0) this.statementCacheSize = statementCacheSize;
+    }
+
+    public boolean isEnableDriverSpecializedProxy() {
+        return this.enableDriverSpecializedProxy;
+    }
+
+    public void setEnableDriverSpecializedProxy(boolean enableDriverSpecializedProxy) {
+        this.enableDriverSpecializedProxy = enableDriverSpecializedProxy;
+    }
+
+    public long getClockResolution() {
+        return this.clockResolution;
+    }
+
+    public void setClockResolution(long clockResolution) {
+        if (clockResolution >= 0L) this.clockResolution = clockResolution;
+    }
+
+    public String getIdleSelectPolicy() {
+        return this.idleSelectPolicy;
+    }
+
+    public void setIdleSelectPolicy(String idleSelectPolicy) {
+        String policyName = IdleSelectPolicy.getPolicyName(trimString(idleSelectPolicy));
+        if (policyName != null) {
+            this.idleSelectPolicy = policyName;
+        } else {
+            throw new BeeDataSourceConfigException("Invalid idle select policy:" + idleSelectPolicy + ", value is one of[" + IdleSelectPolicy.POLICY_NAME_LIST + "]");
+        }
+    }
+
     public long getMaxWait() {
         return this.maxWait;
     }
@@ -335,6 +501,14 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         if (holdTimeout >= 0L) this.holdTimeout = holdTimeout;
     }
 
+    public long getMaxLifetime() {
+        return this.maxLifetime;
+    }
+
+    public void setMaxLifetime(long maxLifetime) {
+        if (maxLifetime >= 0L) this.maxLifetime = maxLifetime;
+    }
+
     public String getAliveTestSql() {
         return this.aliveTestSql;
     }
@@ -359,6 +533,43 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         if (aliveAssumeTime >= 0L) this.aliveAssumeTime = aliveAssumeTime;
     }
 
+    public long getIdleAliveTestInterval() {
+        return this.idleAliveTestInterval;
+    }
+
+    public void setIdleAliveTestInterval(long idleAliveTestInterval) {
+        if (idleAliveTestInterval >= 0L) this.idleAliveTestInterval = idleAliveTestInterval;
+    }
+
+    public int getMaxConcurrentAliveTest() {
+        return this.maxConcurrentAliveTest;
+    }
+
+    public void setMaxConcurrentAliveTest(int maxConcurrentAliveTest) {
+        if (maxConcurrentAliveTest > 0) this.maxConcurrentAliveTest = maxConcurrentAliveTest;
+    }
+
+    public long getKeepaliveTime() {
+        return this.keepaliveTime;
+    }
+
+    public void setKeepaliveTime(long keepaliveTime) {
+        if (keepaliveTime >= 0L) this.keepaliveTime = keepaliveTime;
+    }
+
+    public String getAliveTestPolicy() {
+        return this.aliveTestPolicy;
+    }
+
+    public void setAliveTestPolicy(String aliveTestPolicy) {
+        String policyName = AliveTestPolicy.getPolicyName(trimString(aliveTestPolicy));
+        if (policyName != null) {
+            this.aliveTestPolicy = policyName;
+        } else {
+            throw new BeeDataSourceConfigException("Invalid alive test policy:" + aliveTestPolicy + ", value is one of[" + AliveTestPolicy.POLICY_NAME_LIST + "]");
+        }
+    }
+
     public long getTimerCheckInterval() {
         return this.timerCheckInterval;
     }
@@ -383,6 +594,14 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         if (delayTimeForNextClear >= 0L) this.delayTimeForNextClear = delayTimeForNextClear;
     }
 
+    public boolean isEnableServerFatalEviction() {
+        return this.enableServerFatalEviction;
+    }
+
+    public void setEnableServerFatalEviction(boolean enableServerFatalEviction) {
+        this.enableServerFatalEviction = enableServerFatalEviction;
+    }
+
     public List<Integer> getSqlExceptionCodeList() {
         return sqlExceptionCodeList;
     }
@@ -574,6 +793,14 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         this.forceDirtyOnCatalogAfterSet = forceDirtyOnCatalogAfterSet;
     }
 
+    public boolean isEnableSessionStateCache() {
+        return this.enableSessionStateCache;
+    }
+
+    public void setEnableSessionStateCache(boolean enableSessionStateCache) {
+        this.enableSessionStateCache = enableSessionStateCache;
+    }
+
     //****************************************************************************************************************//
     //                                    6: connection factory class set methods(12)                                 //
     //****************************************************************************************************************//
@@ -654,6 +881,30 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         this.sqlExceptionPredication = sqlExceptionPredication;
     }
 
+    public Class getAliveTestClass() {
+        return aliveTestClass;
+    }
+
+    public void setAliveTestClass(Class aliveTestClass) {
+        this.aliveTestClass = aliveTestClass;
+    }
+
+    public String getAliveTestClassName() {
+        return aliveTestClassName;
+    }
+
+    public void setAliveTestClassName(String aliveTestClassName) {
+        this.aliveTestClassName = trimString(aliveTestClassName);
+    }
+
+    public BeeConnectionAliveTest getAliveTest() {
+        return aliveTest;
+    }
+
+    public void setAliveTest(BeeConnectionAliveTest aliveTest) {
+        this.aliveTest = aliveTest;
+    }
+
     public Class getJdbcLinkInfoDecoderClass() {
         return this.jdbcLinkInfoDecoderClass;
     }
@@ -838,6 +1089,8 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
     public BeeDataSourceConfig check() throws SQLException {
         if (initialSize > maxActive)
             throw new BeeDataSourceConfigException("initialSize must not be greater than maxActive");
+        if (enableAdaptiveSemaphore && maxBorrowSemaphoreSize > 0 && minBorrowSemaphoreSize > maxBorrowSemaphoreSize)
+            throw new BeeDataSourceConfigException("minBorrowSemaphoreSize must not be greater than maxBorrowSemaphoreSize");
         if (!aliveTestSql.toUpperCase(Locale.US).startsWith("SELECT ")) {
             //fix issue:#1 The check of validationQuerySQL has logic problem. Chris-2019-05-01 end
             throw new BeeDataSourceConfigException("Alive test sql must be start with 'select '");
@@ -846,6 +1099,7 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         Object connectionFactory = createConnectionFactory();
         BeeConnectionPoolThreadFactory threadFactory = this.createThreadFactory();
         SQLExceptionPredication predication = this.createSQLExceptionPredication();
+        BeeConnectionAliveTest aliveTest = this.createAliveTest();
 
         BeeDataSourceConfig checkedConfig = new BeeDataSourceConfig();
         copyTo(checkedConfig);
@@ -855,6 +1109,7 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         this.connectionFactory = connectionFactory;
         checkedConfig.connectionFactory = connectionFactory;
         checkedConfig.sqlExceptionPredication = predication;
+        checkedConfig.aliveTest = aliveTest;
         if (isBlank(checkedConfig.poolName)) checkedConfig.poolName = "FastPool-" + PoolNameIndex.getAndIncrement();
 
         return checkedConfig;
@@ -1086,6 +1341,29 @@ public class BeeDataSourceConfig implements BeeDataSourceConfigJmxBean {
         return null;
     }
 
+    //create alive test
+    private BeeConnectionAliveTest createAliveTest() throws BeeDataSourceConfigException {
+        //step1:if exists alive test,then return it
+        if (this.aliveTest != null) return this.aliveTest;
+
+        //step2: create alive test
+        if (aliveTestClass != null || !isBlank(aliveTestClassName)) {
+            Class<?> testClass = null;
+            try {
+                testClass = aliveTestClass != null ? aliveTestClass : Class.forName(aliveTestClassName);
+                return (BeeConnectionAliveTest) createClassInstance(testClass, BeeConnectionAliveTest.class, "alive test");
+            } catch (ClassNotFoundException e) {
+                throw new BeeDataSourceConfigException("Not found alive test class[" + aliveTestClassName + "]", e);
+            } catch (BeeDataSourceConfigException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BeeDataSourceConfigException("Failed to create alive test with class[" + testClass + "]", e);
+            }
+        }
+
+        return null;
+    }
+
     //create Thread factory
     private BeeConnectionPoolThreadFactory createThreadFactory() throws BeeDataSourceConfigException {
         //step1:if exists thread factory,then return it
@@ -35,6 +35,36 @@ public interface BeeDataSourceConfigJmxBean {
 
     int getBorrowSemaphoreSize();
 
+    boolean isEnableAdaptiveSemaphore();
+
+    int getMinBorrowSemaphoreSize();
+
+    int getMaxBorrowSemaphoreSize();
+
+    long getSemaphoreAdjustInterval();
+
+    int getThreadLocalCacheSize();
+
+    boolean isEnableThreadLocal();
+
+    boolean isEnableAsyncReset();
+
+    boolean isEnableSessionStateCache();
+
+    int getMaxConcurrentCreation();
+
+    int getCreationFailureThreshold();
+
+    long getCreationProbeMaxInterval();
+
+    String getIdleSelectPolicy();
+
+    int getStatementCacheSize();
+
+    boolean isEnableDriverSpecializedProxy();
+
+    long getClockResolution();
+
     Boolean isDefaultAutoCommit();
 
     Integer getDefaultTransactionIsolationCode();
@@ -51,16 +81,28 @@ public interface BeeDataSourceConfigJmxBean {
 
     long getHoldTimeout();
 
+    long getMaxLifetime();
+
     String getAliveTestSql();
 
     int getAliveTestTimeout();
 
     long getAliveAssumeTime();
 
+    long getIdleAliveTestInterval();
+
+    int getMaxConcurrentAliveTest();
+
+    long getKeepaliveTime();
+
+    String getAliveTestPolicy();
+
     boolean isForceCloseUsingOnClear();
 
     long getDelayTimeForNextClear();
 
+    boolean isEnableServerFatalEviction();
+
     long getTimerCheckInterval();
 
     String getPoolImplementClassName();
@@ -0,0 +1,39 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp;
+
+import java.util.Locale;
+
+/**
+ * Selection policy on idle connections when borrowers search in pool.Policies decide a start slot of search in pooled
+ * array,they are ordered by slot position,not by idle time of connections
+ *
+ * @author Chris Liao
+ */
+public final class IdleSelectPolicy {
+
+    //search from home stripe of borrower thread,borrows spread over all idle connections
+    public static final String POLICY_STRIPED = "STRIPED";
+
+    //search from the lowest slot,connections in low slots are reused and surplus ones in high slots can be timeout in idle
+    public static final String POLICY_LOWEST_SLOT = "LOWEST_SLOT";
+
+    //search from the next slot of last selected one,idle connections are selected in turn of slot position
+    public static final String POLICY_ROUND_ROBIN = "ROUND_ROBIN";
+
+    static final String POLICY_NAME_LIST = POLICY_STRIPED + "," + POLICY_LOWEST_SLOT + "," + POLICY_ROUND_ROBIN;
+
+    static String getPolicyName(String name) {
+        String policyName = name.toUpperCase(Locale.US);
+        if (POLICY_STRIPED.equals(policyName) || POLICY_LOWEST_SLOT.equals(policyName) || POLICY_ROUND_ROBIN.equals(policyName))
+            return policyName;
+        return null;
+    }
+}
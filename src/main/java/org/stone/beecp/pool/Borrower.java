@@ -9,14 +9,46 @@
  */
 package org.stone.beecp.pool;
 
+import static org.stone.beecp.pool.ConnectionPoolStatics.CON_CLOSED;
+
 /**
  * Pool Connection borrower
  *
  * @author Chris Liao
  * @version 1.0
  */
-final class Borrower {
+final class Borrower extends CacheLinePadding.BorrowerStatePadding {
     final Thread thread = Thread.currentThread();
-    volatile Object state;
-    PooledConnection lastUsed;
-}
\ No newline at end of file
+    final PooledConnection[] usedArray;//recently used connections of borrower,which may be held again via cas
+    final int homeStripe;//index of stripe where borrower begins to search idle connections
+    final ConnectionFuture future;//not null when borrower is from asynchronous borrowing
+    private int usedPos;//replacement position in used array when full
+
+    Borrower(int usedCacheSize, int homeStripe) {
+        this.usedArray = new PooledConnection[usedCacheSize];
+        this.homeStripe = homeStripe;
+        this.future = null;
+    }
+
+    Borrower(ConnectionFuture future) {
+        this.usedArray = new PooledConnection[0];
+        this.homeStripe = 0;
+        this.future = future;
+    }
+
+    //put a used connection to cache array,if full,replace the oldest one
+    void cacheUsed(PooledConnection p) {
+        int freePos = -1;
+        for (int i = 0, l = this.usedArray.length; i < l; i++) {
+            PooledConnection c = this.usedArray[i];
+            if (c == p) return;
+            if (freePos == -1 && (c == null || c.state == CON_CLOSED)) freePos = i;
+        }
+
+        if (freePos == -1) {
+            freePos = this.usedPos;
+            this.usedPos = (freePos + 1) % this.usedArray.length;
+        }
+        this.usedArray[freePos] = p;
+    }
+}
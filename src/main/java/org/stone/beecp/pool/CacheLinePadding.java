@@ -0,0 +1,51 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+/**
+ * Padded base classes to place cas fields of pooled connection and borrower on cache lines of their own.
+ * A field of super class is laid out before fields of sub classes,so padding fields are declared in a class chain,
+ * then state fields are apart from fields of neighbour objects in heap(lhs) and fields written by owners(rhs).
+ * Byte type paddings leave no gaps in super classes,which can be filled with fields of sub classes on jdk15+.
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+final class CacheLinePadding {
+
+    abstract static class LhsPadding {
+        byte b000, b001, b002, b003, b004, b005, b006, b007, b010, b011, b012, b013, b014, b015, b016, b017;
+        byte b020, b021, b022, b023, b024, b025, b026, b027, b030, b031, b032, b033, b034, b035, b036, b037;
+        byte b040, b041, b042, b043, b044, b045, b046, b047, b050, b051, b052, b053, b054, b055, b056, b057;
+        byte b060, b061, b062, b063, b064, b065, b066, b067, b070, b071, b072, b073, b074, b075, b076, b077;
+    }
+
+    abstract static class ConnectionState extends LhsPadding {
+        volatile int state;//cas by borrowers in searching
+    }
+
+    abstract static class ConnectionStatePadding extends ConnectionState {
+        byte b100, b101, b102, b103, b104, b105, b106, b107, b110, b111, b112, b113, b114, b115, b116, b117;
+        byte b120, b121, b122, b123, b124, b125, b126, b127, b130, b131, b132, b133, b134, b135, b136, b137;
+        byte b140, b141, b142, b143, b144, b145, b146, b147, b150, b151, b152, b153, b154, b155, b156, b157;
+        byte b160, b161, b162, b163, b164, b165, b166, b167, b170, b171, b172, b173, b174, b175, b176, b177;
+    }
+
+    abstract static class BorrowerState extends LhsPadding {
+        volatile Object state;//cas by releasers in transferring
+    }
+
+    abstract static class BorrowerStatePadding extends BorrowerState {
+        byte b100, b101, b102, b103, b104, b105, b106, b107, b110, b111, b112, b113, b114, b115, b116, b117;
+        byte b120, b121, b122, b123, b124, b125, b126, b127, b130, b131, b132, b133, b134, b135, b136, b137;
+        byte b140, b141, b142, b143, b144, b145, b146, b147, b150, b151, b152, b153, b154, b155, b156, b157;
+        byte b160, b161, b162, b163, b164, b165, b166, b167, b170, b171, b172, b173, b174, b175, b176, b177;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import org.stone.beecp.BeeConnectionFuture;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.*;
+
+/**
+ * Connection future of asynchronous borrowing
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+final class ConnectionFuture implements BeeConnectionFuture {
+    final Borrower borrower;//offered to wait queue of pool to get a transferred connection
+    private final FastConnectionPool pool;
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+    private final ConcurrentLinkedQueue<Runnable> listenerQueue = new ConcurrentLinkedQueue<Runnable>();
+    volatile ScheduledFuture<?> timeoutFuture;//cancel it when done
+    private volatile Object result;//Connection,SQLException,CancellationException
+
+    ConnectionFuture(FastConnectionPool pool) {
+        this.pool = pool;
+        this.borrower = new Borrower(this);
+    }
+
+    //***************************************************************************************************************//
+    //                                      1: completion methods(call by pool)                                      //
+    //***************************************************************************************************************//
+    void complete(Object result) {
+        this.result = result;
+        ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+        if (timeoutFuture != null) timeoutFuture.cancel(false);
+        this.doneLatch.countDown();
+        this.runListeners();
+    }
+
+    private void runListeners() {
+        Runnable listener;
+        while ((listener = this.listenerQueue.poll()) != null) {
+            try {
+                listener.run();
+            } catch (Throwable e) {
+                ConnectionPoolStatics.CommonLog.warn("Error occurred in listener of connection future", e);
+            }
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                      2: future methods                                                        //
+    //***************************************************************************************************************//
+    public void addListener(Runnable listener) {
+        if (listener == null) throw new NullPointerException();
+        this.listenerQueue.offer(listener);
+        if (this.result != null) this.runListeners();
+    }
+
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return this.pool != null && this.pool.abortAsyncBorrow(this.borrower, new CancellationException("Connection get request has been cancelled"));
+    }
+
+    public boolean isCancelled() {
+        return this.result instanceof CancellationException;
+    }
+
+    public boolean isDone() {
+        return this.result != null;
+    }
+
+    public Connection get() throws InterruptedException, ExecutionException {
+        this.doneLatch.await();
+        return this.getResult();
+    }
+
+    public Connection get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!this.doneLatch.await(timeout, unit)) throw new TimeoutException();
+        return this.getResult();
+    }
+
+    private Connection getResult() throws ExecutionException {
+        Object result = this.result;
+        if (result instanceof Connection) return (Connection) result;
+        if (result instanceof CancellationException) throw (CancellationException) result;
+        throw new ExecutionException((SQLException) result);
+    }
+}
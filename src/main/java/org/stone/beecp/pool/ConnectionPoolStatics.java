@@ -73,6 +73,11 @@ public class ConnectionPoolStatics {
         }
     };
 
+    //idle select policy
+    static final int IDLE_SELECT_STRIPED = 0;
+    static final int IDLE_SELECT_LOWEST_SLOT = 1;
+    static final int IDLE_SELECT_ROUND_ROBIN = 2;
+
     //pool state
     static final int POOL_NEW = 0;
     static final int POOL_STARTING = 1;
@@ -84,6 +89,15 @@ public class ConnectionPoolStatics {
     static final int CON_IDLE = 0;
     static final int CON_USING = 1;
     static final int CON_CLOSED = 2;
+    static final int CON_TESTING = 3;//in alive test by background
+    static final int CON_RETIRING = 4;//in replacement by background after lifetime expired
+    static final int CON_RESETTING = 5;//in reset by background after returned,skipped by hold timeout check and clearing
+    //state of circuit breaker on creation
+    static final int BREAKER_CLOSED = 0;
+    static final int BREAKER_OPEN = 1;
+    static final int BREAKER_HALF_OPEN = 2;//a probe in creation
+    static final String[] BREAKER_STATE_NAMES = {"closed", "open", "half-open"};
+    static final long CREATION_PROBE_BASE_INTERVAL = 500L;//milliseconds,doubled on each failed probe
     //pool thread state
     static final int THREAD_WORKING = 0;
     static final int THREAD_WAITING = 1;
@@ -100,6 +114,8 @@ public class ConnectionPoolStatics {
     static final String DESC_RM_BAD = "bad";
     static final String DESC_RM_ABORT = "abort";
     static final String DESC_RM_IDLE = "idle";
+    static final String DESC_RM_LIFETIME = "lifetime";
+    static final String DESC_RM_GENERATION = "generation";
     static final String DESC_RM_CLOSED = "closed";
     static final String DESC_RM_CLEAR = "clear";
     static final String DESC_RM_DESTROY = "destroy";
@@ -182,7 +198,7 @@ public class ConnectionPoolStatics {
     }
 
     //***************************************************************************************************************//
-    //                               3: JDBC body auto fill by javassist methods(2)                                  //
+    //                               3: JDBC body auto fill by javassist methods(4)                                  //
     //***************************************************************************************************************//
     static ProxyConnectionBase createProxyConnection(PooledConnection p) throws SQLException {
         throw new SQLException("Proxy classes not be generated,please execute 'ProxyClassGenerator' after compile");
@@ -192,6 +208,14 @@ public class ConnectionPoolStatics {
         throw new SQLException("Proxy classes not be generated,please execute 'ProxyClassGenerator' after compile");
     }
 
+    static ProxyStatementBase createProxyPsStatement(PreparedStatement raw, ProxyConnectionBase owner, PooledConnection p) throws SQLException {
+        throw new SQLException("Proxy classes not be generated,please execute 'ProxyClassGenerator' after compile");
+    }
+
+    static ProxyStatementBase createProxyCsStatement(CallableStatement raw, ProxyConnectionBase owner, PooledConnection p) throws SQLException {
+        throw new SQLException("Proxy classes not be generated,please execute 'ProxyClassGenerator' after compile");
+    }
+
     //***************************************************************************************************************//
     //                               4: JDBC other help methods(3)                                                   //
     //***************************************************************************************************************//
@@ -27,10 +27,16 @@ import java.net.UnknownHostException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
@@ -45,10 +51,11 @@ import static org.stone.tools.CommonUtil.*;
  * @version 1.0
  */
 public final class FastConnectionPool extends Thread implements BeeConnectionPool, BeeConnectionPoolJmxBean, PooledConnectionAliveTest, PooledConnectionTransferPolicy {
-    private static final AtomicIntegerFieldUpdater<PooledConnection> ConStUpd = IntegerFieldUpdaterImpl.newUpdater(PooledConnection.class, "state");
-    private static final AtomicReferenceFieldUpdater<Borrower, Object> BorrowStUpd = ReferenceFieldUpdaterImpl.newUpdater(Borrower.class, Object.class, "state");
+    private static final AtomicIntegerFieldUpdater<CacheLinePadding.ConnectionState> ConStUpd = IntegerFieldUpdaterImpl.newUpdater(CacheLinePadding.ConnectionState.class, "state");
+    private static final AtomicReferenceFieldUpdater<CacheLinePadding.BorrowerState, Object> BorrowStUpd = ReferenceFieldUpdaterImpl.newUpdater(CacheLinePadding.BorrowerState.class, Object.class, "state");
     private static final AtomicIntegerFieldUpdater<FastConnectionPool> PoolStateUpd = IntegerFieldUpdaterImpl.newUpdater(FastConnectionPool.class, "poolState");
     private static final Logger Log = LoggerFactory.getLogger(FastConnectionPool.class);
+    private static final long connectionReadyCheckIntervalNs = TimeUnit.MILLISECONDS.toNanos(10L);
 
     private String poolName;
     private String poolMode;
@@ -60,34 +67,87 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
     private volatile int poolState;
     private boolean isFairMode;
     private boolean isCompeteMode;
-    private int semaphoreSize;
+    private volatile int semaphoreSize;
     private PoolSemaphore semaphore;
+    private boolean enableAdaptiveSemaphore;
+    private int minSemaphoreSize;//lower bound of permits in adaptive mode
+    private int maxSemaphoreSize;//upper bound of permits in adaptive mode
+    private AtomicLong borrowLatencyNanos;//sum of borrow time after semaphore acquired in current adjust window
+    private AtomicLong borrowLatencyCount;//count of borrows in current adjust window
+    private long baselineLatencyNanos;//lowest average latency of windows,which drifts up slowly
+    private volatile long semaphoreIncreasedCount;
+    private volatile long semaphoreDecreasedCount;
+    private ScheduledFuture<?> semaphoreAdjustFuture;
+    private PoolClock clock;//coarse clock read on access time updates and timeout checks
+    private ScheduledFuture<?> clockTickFuture;
     private long maxWaitNs;//nanoseconds
     private long idleTimeoutMs;//milliseconds
     private long holdTimeoutMs;//milliseconds
     private boolean supportHoldTimeout;
+    private long maxLifetimeMs;//milliseconds
+    private boolean supportMaxLifetime;
+    private ThreadPoolExecutor creationExecutor;//creation in background:replacement of retiring connections
+    private ScheduledThreadPoolExecutor probeExecutor;//a timer to run delayed creation probes while circuit breaker is open
+    private AtomicBoolean probeRunning;//true:a chain of creation probes is scheduled,at most one chain at a time
+    private int creationFailureThreshold;//consecutive creation failures to open circuit breaker,zero means breaker disabled
+    private long creationProbeMaxIntervalMs;//milliseconds
+    private AtomicInteger breakerState;//value is one of[BREAKER_CLOSED,BREAKER_OPEN,BREAKER_HALF_OPEN]
+    private AtomicInteger creationFailureCount;//consecutive failures on creation
+    private AtomicLong breakerOpenCount;//count of transitions to open
+    private ThreadPoolExecutor resetExecutor;//reset returned connections and close removed connections off caller thread,null when not enabled
+    private AtomicInteger generation;//increased on server-wide fatal errors,connections of older generations are retired
+    private ServerFatalErrors serverFatalErrors;//null when eviction on server-wide fatal errors not enabled
     private long aliveAssumeTimeMs;//milliseconds
+    private long idleAliveTestIntervalMs;//milliseconds,zero means not test idle connections in background
+    private int maxConcurrentAliveTest;
+    private long keepaliveTimeMs;//milliseconds,zero means not ping idle connections
+    private AtomicLong keepaliveCount;
+    private AtomicLong keepaliveFailedCount;
+    private AtomicInteger aliveTestingSize;//size of idle connections in alive test by background
+    private ThreadPoolExecutor aliveTestExecutor;
+    private ScheduledFuture<?> aliveTestScanFuture;
     private int aliveTestTimeout;//seconds
     private long delayTimeForNextClearNs;//nanoseconds
     private int stateCodeOnRelease;
 
     private PooledConnectionTransferPolicy transferPolicy;
-    private boolean templatePooledConnIsReady;
+    private volatile boolean templatePooledConnIsReady;
     private PooledConnection templatePooledConn;
-    private ReentrantLock pooledArrayLock;
-    private volatile long pooledArrayLockedTimePoint;//milliseconds
-    private volatile PooledConnection[] pooledArray;
+    private ReentrantLock pooledArrayLock;//lock on creation of template pooled connection
+    private volatile AtomicReferenceArray<PooledConnection> pooledArray;//preallocated slots with max capacity
+    private AtomicInteger totalSize;//size of pooled connections in slots
+    private AtomicInteger idleSize;//size of idle pooled connections in slots
+    private volatile AtomicLongArray idleSlotBits;//bitmap index on idle slots(one bit per slot)
+    private AtomicInteger creatingSize;//size of connections in creating(reserved slots in pooled array)
+    private PoolSemaphore creationSemaphore;//permits of concurrent creation
+    private ConcurrentHashMap<Thread, Long> creatingThreadMap;//threads in creating and their start time(milliseconds)
     private boolean isRawXaConnFactory;
     private RawConnectionFactory rawConnFactory;
     private RawXaConnectionFactory rawXaConnFactory;
     private PooledConnectionAliveTest conValidTest;
+    private String aliveTestPolicyName;//policy name or class name of working alive test
+    private AtomicLong aliveTestCount;
+    private AtomicLong aliveTestFailedCount;
+    private AtomicLong aliveTestNanos;//total time of alive tests
     private ThreadPoolExecutor networkTimeoutExecutor;
     private AtomicInteger servantState;
     private AtomicInteger servantTryCount;
     private AtomicInteger idleScanState;
     private IdleTimeoutScanThread idleScanThread;
     private ConcurrentLinkedQueue<Borrower> waitQueue;
+    private ScheduledThreadPoolExecutor asyncTimeoutExecutor;//a shared timer on timeout of asynchronous borrowing
     private ThreadLocal<WeakReference<Borrower>> threadLocal;
+    private boolean enableThreadLocal;
+    private int threadLocalCacheSize;
+    private int stripeCount;
+    private int idleSelectPolicyCode;
+    private AtomicInteger idleSelectCursor;//start slot of next search under ROUND_ROBIN policy
+    private StripedCounter threadLocalHitCount;
+    private StripedCounter threadLocalMissCount;
+    private int statementCacheSize;
+    private AtomicLong stmCacheHitCount;
+    private AtomicLong stmCacheMissCount;
+    private AtomicLong stmCacheEvictionCount;
     private BeeDataSourceConfig poolConfig;
     private FastConnectionPoolMonitorVo monitorVo;
     private ConnectionPoolHook exitHook;
@@ -140,9 +200,46 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         this.templatePooledConn = null;
         this.templatePooledConnIsReady = false;//this startup method can be called to restart pool,so need reset this field to false
         this.poolMaxSize = poolConfig.getMaxActive();
+        this.maxLifetimeMs = poolConfig.getMaxLifetime();//used by template on creating initial connections
+        this.supportMaxLifetime = maxLifetimeMs > 0L;
         if (POOL_STARTING == poolWorkState) {//just create once
             this.pooledArrayLock = new ReentrantLock();
-            this.pooledArray = new PooledConnection[0];
+            this.totalSize = new AtomicInteger(0);
+            this.idleSize = new AtomicInteger(0);
+            this.creatingSize = new AtomicInteger(0);
+            this.creatingThreadMap = new ConcurrentHashMap<Thread, Long>();
+            this.clock = new PoolClock();
+            this.aliveTestingSize = new AtomicInteger(0);
+            this.generation = new AtomicInteger(0);
+            this.breakerState = new AtomicInteger(BREAKER_CLOSED);
+            this.creationFailureCount = new AtomicInteger(0);
+            this.breakerOpenCount = new AtomicLong(0L);
+            this.probeRunning = new AtomicBoolean(false);
+        }
+        if (this.pooledArray == null || this.pooledArray.length() != this.poolMaxSize) {//all slots are empty after clearing
+            this.idleSlotBits = new AtomicLongArray((this.poolMaxSize + 63) >>> 6);
+            this.pooledArray = new AtomicReferenceArray<PooledConnection>(this.poolMaxSize);
+        }
+        this.creationSemaphore = new PoolSemaphore(poolConfig.getMaxConcurrentCreation(), false);
+        this.creationFailureThreshold = poolConfig.getCreationFailureThreshold();
+        this.creationProbeMaxIntervalMs = poolConfig.getCreationProbeMaxInterval();
+        this.breakerState.set(BREAKER_CLOSED);//a probe in running exits after reset
+        this.creationFailureCount.set(0);
+        if ((this.supportMaxLifetime || poolConfig.isEnableServerFatalEviction()) && this.creationExecutor == null) {
+            this.creationExecutor = new ThreadPoolExecutor(1, 1, 15L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new PoolThreadThreadFactory("BeeCP(" + poolName + ")-creationThread"));
+            this.creationExecutor.allowCoreThreadTimeOut(true);
+        }
+        if (this.creationFailureThreshold > 0 && this.probeExecutor == null) {
+            this.probeExecutor = new ScheduledThreadPoolExecutor(1, new PoolThreadThreadFactory("BeeCP(" + poolName + ")-creationProbeThread"));
+            this.probeExecutor.setKeepAliveTime(15L, TimeUnit.SECONDS);
+            this.probeExecutor.allowCoreThreadTimeOut(true);
+        }
+        if (poolConfig.isEnableAsyncReset() && this.resetExecutor == null) {
+            int resetThreadSize = Math.min(this.poolMaxSize, Runtime.getRuntime().availableProcessors());
+            this.resetExecutor = new ThreadPoolExecutor(resetThreadSize, resetThreadSize, 15L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new PoolThreadThreadFactory("BeeCP(" + poolName + ")-resetThread"));
+            this.resetExecutor.allowCoreThreadTimeOut(true);
         }
 
         //step3: creates initial connections by syn mode
@@ -167,14 +264,37 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         this.holdTimeoutMs = poolConfig.getHoldTimeout();
         this.supportHoldTimeout = holdTimeoutMs > 0L;
         this.aliveAssumeTimeMs = poolConfig.getAliveAssumeTime();
+        this.idleAliveTestIntervalMs = poolConfig.getIdleAliveTestInterval();
+        this.maxConcurrentAliveTest = poolConfig.getMaxConcurrentAliveTest();
+        this.keepaliveTimeMs = poolConfig.getKeepaliveTime();
         this.aliveTestTimeout = poolConfig.getAliveTestTimeout();
         this.delayTimeForNextClearNs = TimeUnit.MILLISECONDS.toNanos(poolConfig.getDelayTimeForNextClear());
         this.printRuntimeLog = poolConfig.isPrintRuntimeLog();
         this.semaphoreSize = poolConfig.getBorrowSemaphoreSize();
+        this.enableAdaptiveSemaphore = poolConfig.isEnableAdaptiveSemaphore();
+        if (this.enableAdaptiveSemaphore) {
+            int maxBorrowSemaphoreSize = poolConfig.getMaxBorrowSemaphoreSize();
+            this.maxSemaphoreSize = maxBorrowSemaphoreSize > 0 ? maxBorrowSemaphoreSize : this.poolMaxSize;
+            this.minSemaphoreSize = Math.min(poolConfig.getMinBorrowSemaphoreSize(), this.maxSemaphoreSize);
+            this.semaphoreSize = Math.max(this.minSemaphoreSize, Math.min(this.semaphoreSize, this.maxSemaphoreSize));
+        }
+        this.enableThreadLocal = poolConfig.isEnableThreadLocal();
+        this.threadLocalCacheSize = poolConfig.getThreadLocalCacheSize();
+        this.statementCacheSize = poolConfig.getStatementCacheSize();
+        this.stripeCount = Math.min(NCPU, this.poolMaxSize);//pooled array is logically split into stripes by cpu size
+        String idleSelectPolicy = poolConfig.getIdleSelectPolicy();
+        if (IdleSelectPolicy.POLICY_LOWEST_SLOT.equals(idleSelectPolicy)) {
+            this.idleSelectPolicyCode = IDLE_SELECT_LOWEST_SLOT;
+        } else if (IdleSelectPolicy.POLICY_ROUND_ROBIN.equals(idleSelectPolicy)) {
+            this.idleSelectPolicyCode = IDLE_SELECT_ROUND_ROBIN;
+        } else {
+            this.idleSelectPolicyCode = IDLE_SELECT_STRIPED;
+        }
+        this.idleSelectCursor = new AtomicInteger(0);
 
         //step6: creates a pool semaphore and threadLocal
         this.semaphore = new PoolSemaphore(this.semaphoreSize, isFairMode);
-        this.threadLocal = new BorrowerThreadLocal();//as a cache to store one used connection
+        this.threadLocal = new BorrowerThreadLocal(this);//as a cache to store some used connections
 
         //step7: creates pool others objects
         if (POOL_STARTING == poolWorkState) {
@@ -183,9 +303,23 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             this.servantState = new AtomicInteger(THREAD_WORKING);//work state of the servant thread
             this.idleScanState = new AtomicInteger(THREAD_WORKING);//work state of idle-scan thread
             this.idleScanThread = new IdleTimeoutScanThread(this);
+            this.asyncTimeoutExecutor = new ScheduledThreadPoolExecutor(1, new PoolThreadThreadFactory("BeeCP(" + poolName + ")-asyncTimeoutThread"));
+            this.asyncTimeoutExecutor.setRemoveOnCancelPolicy(true);
+            this.threadLocalHitCount = new StripedCounter(this.stripeCount);//hit count on used connections cached in threadLocal
+            this.threadLocalMissCount = new StripedCounter(this.stripeCount);//miss count on used connections cached in threadLocal
+            this.stmCacheHitCount = new AtomicLong(0L);//hit count on prepared statement caches of pooled connections
+            this.stmCacheMissCount = new AtomicLong(0L);
+            this.stmCacheEvictionCount = new AtomicLong(0L);
+            this.aliveTestCount = new AtomicLong(0L);//count of alive tests on connections(borrowed and background)
+            this.aliveTestFailedCount = new AtomicLong(0L);
+            this.aliveTestNanos = new AtomicLong(0L);
+            this.keepaliveCount = new AtomicLong(0L);//count of keepalive pings on idle connections
+            this.keepaliveFailedCount = new AtomicLong(0L);
             this.monitorVo = this.createPoolMonitorVo();//a view object contains pool info,such state,idle,using
             this.exitHook = new ConnectionPoolHook(this);//a hook works when JVM exit
             Runtime.getRuntime().addShutdownHook(this.exitHook);
+            this.borrowLatencyNanos = new AtomicLong(0L);
+            this.borrowLatencyCount = new AtomicLong(0L);
             this.registerJmx();//registers configuration and pool into JMX
 
             setDaemon(true);
@@ -199,30 +333,79 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             this.idleScanThread.start();
         }
 
-        //step8: creates initial connections(by async mode or sync mode)
+        //step8: schedule resizing task on permits of semaphore in adaptive mode
+        if (this.semaphoreAdjustFuture != null) this.semaphoreAdjustFuture.cancel(false);
+        if (this.enableAdaptiveSemaphore) {
+            this.borrowLatencyNanos.set(0L);
+            this.borrowLatencyCount.set(0L);
+            this.baselineLatencyNanos = 0L;
+            long interval = poolConfig.getSemaphoreAdjustInterval();
+            this.semaphoreAdjustFuture = this.asyncTimeoutExecutor.scheduleWithFixedDelay(new SemaphoreAdjustTask(this), interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.semaphoreAdjustFuture = null;
+        }
+
+        //step9: schedule ticking task of pool clock when its resolution is set
+        if (this.clockTickFuture != null) this.clockTickFuture.cancel(false);
+        long clockResolution = poolConfig.getClockResolution();
+        if (clockResolution > 0L) {
+            this.clock.start();
+            this.clockTickFuture = this.asyncTimeoutExecutor.scheduleAtFixedRate(this.clock, clockResolution, clockResolution, TimeUnit.MILLISECONDS);
+        } else {
+            this.clock.stop();
+            this.clockTickFuture = null;
+        }
+
+        //step10: schedule alive test on idle connections in background when its interval is set(executor shared with keepalive)
+        if (this.aliveTestScanFuture != null) this.aliveTestScanFuture.cancel(false);
+        this.aliveTestScanFuture = null;
+        if (this.idleAliveTestIntervalMs > 0L || this.keepaliveTimeMs > 0L) {
+            if (this.aliveTestExecutor == null) {
+                this.aliveTestExecutor = new ThreadPoolExecutor(maxConcurrentAliveTest, maxConcurrentAliveTest, 15L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new PoolThreadThreadFactory("BeeCP(" + poolName + ")-aliveTestThread"));
+                this.aliveTestExecutor.allowCoreThreadTimeOut(true);
+            } else if (this.maxConcurrentAliveTest > this.aliveTestExecutor.getMaximumPoolSize()) {
+                this.aliveTestExecutor.setMaximumPoolSize(maxConcurrentAliveTest);
+                this.aliveTestExecutor.setCorePoolSize(maxConcurrentAliveTest);
+            } else {
+                this.aliveTestExecutor.setCorePoolSize(maxConcurrentAliveTest);
+                this.aliveTestExecutor.setMaximumPoolSize(maxConcurrentAliveTest);
+            }
+            if (this.idleAliveTestIntervalMs > 0L)
+                this.aliveTestScanFuture = this.asyncTimeoutExecutor.scheduleWithFixedDelay(new IdleAliveTestScanTask(this), idleAliveTestIntervalMs, idleAliveTestIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        //step11: creates initial connections(by async mode or sync mode)
         if (poolConfig.getInitialSize() > 0 && poolConfig.isAsyncCreateInitConnection())
             new PoolInitAsyncCreateThread(this).start();
 
-        //step9: print info of pool initialization after completion
+        //step12: print info of pool initialization after completion
         Log.info("BeeCP({})has startup{mode:{},init size:{},max size:{},semaphore size:{},max wait:{}ms,driver:{}}",
                 poolName,
                 poolMode,
-                this.pooledArray.length,
+                this.totalSize.get(),
                 this.poolMaxSize,
                 this.semaphoreSize,
                 poolConfig.getMaxWait(),
                 poolConfig.getDriverClassName());
     }
 
-    //Method-1.3: creates initial connections with specified size
+    //Method-1.3: creates initial connections with specified size(in parallel when max concurrent creation greater than 1)
     private void createInitConnections(int initSize, boolean syn) throws SQLException {
-        pooledArrayLock.lock();
         try {
-            for (int i = 0; i < initSize; i++)
-                this.createPooledConn(CON_IDLE);
+            int parallelism = Math.min(this.poolConfig.getMaxConcurrentCreation(), initSize);
+            if (parallelism > 1) {
+                this.createInitConnectionsInParallel(initSize, parallelism);
+            } else {
+                for (int i = 0; i < initSize; i++)
+                    this.createPooledConn(CON_IDLE);
+            }
         } catch (Throwable e) {
-            for (PooledConnection p : this.pooledArray)
-                this.removePooledConn(p, DESC_RM_INIT);
+            AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+            for (int i = 0, l = array.length(); i < l; i++) {
+                PooledConnection p = array.get(i);
+                if (p != null) this.removePooledConn(p, DESC_RM_INIT);
+            }
             if (syn) {//throws failure exception on syn mode
                 if (e instanceof SQLException)
                     throw (SQLException) e;
@@ -231,123 +414,324 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             } else {
                 Log.warn("Failed to create initial connections", e);
             }
+        }
+    }
+
+    //Method-1.4: creates initial connections on a bounded executor,wait all creation tasks done and throw first failure
+    private void createInitConnectionsInParallel(int initSize, int parallelism) throws Throwable {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new PoolThreadThreadFactory("BeeCP(" + poolName + ")-initCreateThread"));
+        try {
+            PoolInitCreateTask task = new PoolInitCreateTask(this);
+            List<Future<PooledConnection>> futureList = new ArrayList<Future<PooledConnection>>(initSize);
+            for (int i = 0; i < initSize; i++)
+                futureList.add(executor.submit(task));
+
+            Throwable cause = null;
+            for (Future<PooledConnection> future : futureList) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (cause == null) cause = e.getCause();
+                }
+            }
+            if (cause != null) throw cause;
         } finally {
-            pooledArrayLock.unlock();
+            executor.shutdown();
         }
     }
 
-    //Method-1.4: creates one pooled connection under lock
+    //Method-1.5: creates one pooled connection on a reserved slot,driver connect runs outside of lock
     private PooledConnection createPooledConn(int state) throws SQLException {
-        //1:try to acquire lock for creating one pooled connection
+        return this.createPooledConn(state, null);
+    }
+
+    //Method-1.6: creates one pooled connection on a reserved slot or on slot of a retiring connection to replace it(null
+    //when the retiring one can't be replaced),fail fast when circuit breaker on creation is not closed
+    private PooledConnection createPooledConn(int state, PooledConnection retiring) throws SQLException {
+        if (this.creationFailureThreshold > 0 && this.breakerState.get() != BREAKER_CLOSED)
+            throw new ConnectionCreateCircuitOpenException("Creation rejected,circuit breaker is open after consecutive creation failures");
+        return this.createPooledConnOnPermit(state, retiring);
+    }
+
+    //Method-1.7: count a failure on creation,open circuit breaker when consecutive failures reach threshold
+    private void countCreationFailure() {
+        if (this.creationFailureThreshold > 0 && this.creationFailureCount.incrementAndGet() >= this.creationFailureThreshold
+                && this.breakerState.compareAndSet(BREAKER_CLOSED, BREAKER_OPEN)) {
+            this.breakerOpenCount.incrementAndGet();
+            Log.warn("BeeCP({})Creation circuit breaker opened after {} consecutive creation failures", this.poolName, this.creationFailureThreshold);
+            this.startCreationProbe();
+        }
+    }
+
+    //start a chain of creation probes if no chain is running
+    private void startCreationProbe() {
+        if (this.probeRunning.compareAndSet(false, true)) this.scheduleCreationProbe(0);
+    }
+
+    //schedule next probe,interval grows exponentially with a random jitter up to max interval
+    private void scheduleCreationProbe(int attempts) {
+        long interval = Math.min(this.creationProbeMaxIntervalMs, CREATION_PROBE_BASE_INTERVAL << Math.min(attempts, 16));
+        long delay = interval / 2L + ThreadLocalRandom.current().nextLong(interval / 2L + 1L);
+        try {
+            this.probeExecutor.schedule(new CreationBreakerProbeTask(this, attempts), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {//pool closed
+            this.probeRunning.set(false);
+        }
+    }
+
+    //end current chain,start a new one when breaker is reopened by others during the chain ending
+    private void endCreationProbe() {
+        this.probeRunning.set(false);
+        if (this.poolState == POOL_READY && this.breakerState.get() == BREAKER_OPEN) this.startCreationProbe();
+    }
+
+    /**
+     * Method-1.8: a one-shot probe on probe timer to test recovery of database while circuit breaker is open.Breaker
+     * is closed when a connection created by probe,otherwise reopened and next probe scheduled.Probe chain exits when
+     * pool is in clearing or closed,and a new chain is started after clearing if breaker is open.
+     *
+     * @param attempts count of failed probes before
+     */
+    private void probeCreation(int attempts) {
+        int poolStateCode = this.poolState;
+        if (poolStateCode == POOL_CLEARING || poolStateCode == POOL_CLOSING || poolStateCode == POOL_CLOSED) {
+            this.probeRunning.set(false);
+            return;
+        }
+        if (!this.breakerState.compareAndSet(BREAKER_OPEN, BREAKER_HALF_OPEN)) {//reset on pool clearing or restart
+            this.endCreationProbe();
+            return;
+        }
+
+        try {
+            this.createPooledConnOnPermit(CON_IDLE, null);//null when pool full,also means database reachable
+            this.creationFailureCount.set(0);
+            if (this.breakerState.compareAndSet(BREAKER_HALF_OPEN, BREAKER_CLOSED))
+                Log.info("BeeCP({})Creation circuit breaker closed after probe", this.poolName);
+            if (!this.waitQueue.isEmpty()) this.tryWakeupServantThread();
+            this.endCreationProbe();
+        } catch (Throwable e) {
+            if (this.printRuntimeLog)
+                Log.warn("BeeCP({})Creation probe failed,circuit breaker remains open", this.poolName, e);
+            if (this.breakerState.compareAndSet(BREAKER_HALF_OPEN, BREAKER_OPEN)) {
+                this.scheduleCreationProbe(attempts + 1);
+            } else {
+                this.endCreationProbe();
+            }
+        }
+    }
+
+    //Method-1.9: creates one pooled connection after acquiring a creation permit
+    private PooledConnection createPooledConnOnPermit(int state, PooledConnection retiring) throws SQLException {
+        //1:try to acquire a permit for creating one pooled connection
+        PoolSemaphore creationSemaphore = this.creationSemaphore;//maybe replaced on pool restart
         try {
-            if (!this.pooledArrayLock.tryLock(this.maxWaitNs, TimeUnit.NANOSECONDS))
+            if (!creationSemaphore.tryAcquire(this.maxWaitNs, TimeUnit.NANOSECONDS))
                 throw new ConnectionCreateException("Timeout at acquiring lock to create a pooled connection");
         } catch (InterruptedException e) {
             throw new ConnectionCreateException("Interrupted at acquiring lock to create a pooled connection");
         }
 
-        //2:creates one pooled connection if not reach max capacity,otherwise return null
-        try {
-            this.pooledArrayLockedTimePoint = System.currentTimeMillis();
-            int l = this.pooledArray.length;
-            if (l < this.poolMaxSize) {
-                if (this.printRuntimeLog)
-                    Log.info("BeeCP({}))Begin to create a new pooled connection with state:{}", this.poolName, state);
+        //2:reserve a slot in pooled array if not reach max capacity,otherwise return null(not need when replace a retiring one)
+        if (retiring == null) {
+            int c;
+            do {
+                c = this.creatingSize.get();
+                if (this.totalSize.get() + c >= this.poolMaxSize) {
+                    creationSemaphore.release();
+                    return null;
+                }
+            } while (!this.creatingSize.compareAndSet(c, c + 1));
+        }
 
-                Connection rawConn = null;
-                XAConnection rawXaConn = null;
-                XAResource rawXaRes = null;
-                try {
-                    if (this.isRawXaConnFactory) {
-                        rawXaConn = this.rawXaConnFactory.create();//maybe stuck in driver? why not try <method>BeeDataSource.interruptThreadsOnCreationLock()<method>?
-                        if (rawXaConn == null) {//if blocking interrupt on LockSupport.park in driver,maybe just return a null connection?
-                            if (Thread.interrupted())
-                                throw new ConnectionGetInterruptedException("Interrupted on creating a raw xaConnection by factory");
-                            throw new ConnectionCreateException("Internal error occurred in xaConnection factory");
-                        }
+        //3:creates one pooled connection and publish it to an empty slot of pooled array
+        int generation = this.generation.get();//read before connect,a connection created across an increase is retired
+        Thread creatingThread = Thread.currentThread();
+        this.creatingThreadMap.put(creatingThread, System.currentTimeMillis());
+        try {
+            if (this.printRuntimeLog)
+                Log.info("BeeCP({}))Begin to create a new pooled connection with state:{}", this.poolName, state);
 
-                        rawConn = rawXaConn.getConnection();
-                        rawXaRes = rawXaConn.getXAResource();
-                    } else {
-                        rawConn = this.rawConnFactory.create();
-                        if (rawConn == null) {
-                            if (Thread.interrupted())
-                                throw new ConnectionGetInterruptedException("Interrupted on creating a raw connection by factory");
-                            throw new ConnectionCreateException("Internal error occurred in connection factory");
-                        }
+            Connection rawConn = null;
+            XAConnection rawXaConn = null;
+            XAResource rawXaRes = null;
+            try {
+                if (this.isRawXaConnFactory) {
+                    rawXaConn = this.rawXaConnFactory.create();//maybe stuck in driver? why not try <method>BeeDataSource.interruptThreadsOnCreationLock()<method>?
+                    if (rawXaConn == null) {//if blocking interrupt on LockSupport.park in driver,maybe just return a null connection?
+                        if (Thread.interrupted())
+                            throw new ConnectionGetInterruptedException("Interrupted on creating a raw xaConnection by factory");
+                        throw new ConnectionCreateException("Internal error occurred in xaConnection factory");
                     }
 
-                    PooledConnection p;
-                    if (this.templatePooledConnIsReady) {//create pooled connections by clone
-                        p = this.templatePooledConn.setDefaultAndCreateByClone(rawConn, state, rawXaRes);
-                    } else {
-                        //create a template pooled connection to clone other news and set default to first connection
-                        this.templatePooledConn = this.createTemplatePooledConn(rawConn);
-                        this.templatePooledConnIsReady = true;//template pooled connection is ready
-                        p = this.templatePooledConn.createFirstByClone(rawConn, state, rawXaRes);//create first pooled connection without default setting
+                    rawConn = rawXaConn.getConnection();
+                    rawXaRes = rawXaConn.getXAResource();
+                } else {
+                    rawConn = this.rawConnFactory.create();
+                    if (rawConn == null) {
+                        if (Thread.interrupted())
+                            throw new ConnectionGetInterruptedException("Interrupted on creating a raw connection by factory");
+                        throw new ConnectionCreateException("Internal error occurred in connection factory");
                     }
+                }
 
-                    if (this.printRuntimeLog)
-                        Log.info("BeeCP({}))Created a new pooled connection:{} with state:{}", this.poolName, p, state);
-                    PooledConnection[] arrayNew = new PooledConnection[l + 1];
-                    System.arraycopy(this.pooledArray, 0, arrayNew, 0, l);
-                    arrayNew[l] = p;//tail
-                    this.pooledArray = arrayNew;
-                    return p;
-                } catch (Throwable e) {
-                    if (rawConn != null) oclose(rawConn);
-                    else if (rawXaConn != null) oclose(rawXaConn);
-                    throw e instanceof SQLException ? (SQLException) e : new ConnectionCreateException(e);
+                PooledConnection p;
+                if (this.templatePooledConnIsReady) {//create pooled connections by clone
+                    p = this.templatePooledConn.setDefaultAndCreateByClone(rawConn, state, rawXaRes);
+                } else {
+                    p = this.createFirstPooledConn(rawConn, state, rawXaRes);
+                }
+                p.generation = generation;
+
+                if (this.printRuntimeLog)
+                    Log.info("BeeCP({}))Created a new pooled connection:{} with state:{}", this.poolName, p, state);
+
+                if (this.creationFailureCount.get() != 0) this.creationFailureCount.set(0);
+                if (retiring == null) {
+                    this.fillSlot(p, state);
+                } else if (!this.replaceSlot(retiring, p)) {//retiring one borrowed or removed during creation
+                    p.onBeforeRemove();
+                    return null;
                 }
+                return p;
+            } catch (Throwable e) {
+                if (rawConn != null) oclose(rawConn);
+                else if (rawXaConn != null) oclose(rawXaConn);
+                if (!(e instanceof ConnectionGetInterruptedException)) this.countCreationFailure();
+                throw e instanceof SQLException ? (SQLException) e : new ConnectionCreateException(e);
             }
-            return null;
         } finally {
-            this.pooledArrayLockedTimePoint = 0L;
+            this.creatingThreadMap.remove(creatingThread);
+            if (retiring == null) this.creatingSize.decrementAndGet();//release reserved slot after publish
+            creationSemaphore.release();
+        }
+    }
+
+    //Method-1.10: creates a template pooled connection under lock and clone first pooled connection from it
+    private PooledConnection createFirstPooledConn(Connection rawConn, int state, XAResource rawXaRes) throws Exception {
+        this.pooledArrayLock.lock();
+        try {
+            if (this.templatePooledConnIsReady)//template has been created by other creating thread
+                return this.templatePooledConn.setDefaultAndCreateByClone(rawConn, state, rawXaRes);
+
+            //create a template pooled connection to clone other news and set default to first connection
+            this.templatePooledConn = this.createTemplatePooledConn(rawConn);
+            this.templatePooledConnIsReady = true;//template pooled connection is ready
+            return this.templatePooledConn.createFirstByClone(rawConn, state, rawXaRes);//create first pooled connection without default setting
+        } finally {
             this.pooledArrayLock.unlock();
         }
     }
 
-    //Method-1.5: remove a pooled connection under lock
+    //Method-1.11: put a new pooled connection to an empty slot(a free slot must exist after reservation)
+    private void fillSlot(PooledConnection p, int state) throws SQLException {
+        AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+        for (int i = 0, l = array.length(); i < l; i++) {
+            if (array.get(i) == null && array.compareAndSet(i, null, p)) {
+                p.slotIndex = i;
+                this.totalSize.incrementAndGet();
+                if (state == CON_IDLE) {
+                    this.idleSize.incrementAndGet();
+                    this.markIdleSlot(i);
+                }
+                return;
+            }
+        }
+        throw new ConnectionCreateException("Not found an empty slot for new pooled connection");//maybe capacity reduced by restart
+    }
+
+    //Method-1.12: put a new idle connection to slot of a retiring connection,then close the retiring one.An idle one is
+    //caught to retiring state only after the new one created,return false when it is borrowed or removed during creation
+    private boolean replaceSlot(PooledConnection retiring, PooledConnection p) {
+        if (retiring.state != CON_RETIRING && !this.tryCatchToRetire(retiring)) return false;
+        AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+        int i = retiring.slotIndex;
+        if (i < array.length() && array.compareAndSet(i, retiring, p)) {
+            p.slotIndex = i;
+            this.idleSize.incrementAndGet();
+            this.markIdleSlot(i);
+            retiring.state = CON_CLOSED;
+            this.closeRemovedConn(retiring);
+            if (this.printRuntimeLog)
+                Log.info("BeeCP({}))Replaced a retiring pooled connection:{}", this.poolName, retiring);
+            return true;
+        }
+        return false;//removed by pool clearing
+    }
+
+    //Method-1.13: remove a pooled connection from its slot
     private void removePooledConn(PooledConnection p, String removeType) {
         if (this.printRuntimeLog)
             Log.info("BeeCP({}))Begin to remove a pooled connection:{} by reason:{}", this.poolName, p, removeType);
-        p.onBeforeRemove();
+        if (ConStUpd.getAndSet(p, CON_CLOSED) == CON_IDLE) {
+            this.idleSize.decrementAndGet();
+            this.unmarkIdleSlot(p.slotIndex);//unmark before clearing slot,a new connection maybe filled into it
+        }
 
-        this.pooledArrayLock.lock();
-        try {
-            for (int l = this.pooledArray.length, i = l - 1; i >= 0; i--) {
-                if (this.pooledArray[i] == p) {
-                    PooledConnection[] arrayNew = new PooledConnection[l - 1];
-                    System.arraycopy(this.pooledArray, 0, arrayNew, 0, i);//copy pre
-                    int m = l - i - 1;
-                    if (m > 0) System.arraycopy(this.pooledArray, i + 1, arrayNew, i, m);//copy after
-                    this.pooledArray = arrayNew;
-                    if (this.printRuntimeLog)
-                        Log.info("BeeCP({}))Removed a pooled connection:{} for reason:{}", this.poolName, p, removeType);
-                    break;
-                }
+        AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+        int i = p.slotIndex;
+        if (i < array.length() && array.compareAndSet(i, p, null)) {//only one remover can clear the slot
+            this.closeRemovedConn(p);
+            this.totalSize.decrementAndGet();
+            if (this.printRuntimeLog)
+                Log.info("BeeCP({}))Removed a pooled connection:{} for reason:{}", this.poolName, p, removeType);
+        }
+    }
+
+    //Method-1.14: reset and close a removed connection,which runs on reset executor when async reset enabled and pool is ready
+    private void closeRemovedConn(PooledConnection p) {
+        ThreadPoolExecutor executor = this.resetExecutor;
+        if (executor != null && this.poolState == POOL_READY) {
+            try {
+                executor.execute(new PooledConnectionResetTask(p, true));
+                return;
+            } catch (RejectedExecutionException e) {
+                //close it in current thread
             }
-        } finally {
-            this.pooledArrayLock.unlock();
         }
+        p.onBeforeRemove();
     }
 
-    //Method-1.6: get elapsed time of lock owner thread
+    //Method-1.15: get elapsed time of the longest creating thread
     public long getElapsedTimeSinceCreationLock() {
-        return this.pooledArrayLockedTimePoint > 0L ? System.currentTimeMillis() - this.pooledArrayLockedTimePoint : 0L;
+        long minStartTime = 0L;
+        for (Long startTime : this.creatingThreadMap.values()) {
+            if (minStartTime == 0L || startTime < minStartTime) minStartTime = startTime;
+        }
+        return minStartTime > 0L ? System.currentTimeMillis() - minStartTime : 0L;
     }
 
-    //Method-1.7: interrupt queued waiters on creation lock and acquired thread,which may be stuck in driver
+    //Method-1.16: interrupt waiters on creation permits and creating threads,which may be stuck in driver
     public void interruptThreadsOnCreationLock() {
-        try {
-            interruptQueuedWaitersOnLock(this.pooledArrayLock);
-            interruptExclusiveOwnerThread(this.pooledArrayLock);
-        } catch (Throwable e) {
-            Log.warn("BeeCP({})Failed to interrupt threads on lock", e);
+        this.creationSemaphore.interruptWaitingThreads();
+        for (Thread thread : this.creatingThreadMap.keySet())
+            thread.interrupt();
+    }
+
+    //Method-1.17: blocks until size of pooled connections reach the given size or timeout
+    public boolean awaitConnectionReady(int size, long timeoutMillis) throws SQLException {
+        int expectSize = Math.min(size, this.poolMaxSize);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (this.totalSize.get() < expectSize) {
+            if (this.poolState == POOL_CLOSED || this.poolState == POOL_CLOSING) return false;
+            long t = deadline - System.nanoTime();
+            if (t <= 0L) return false;
+
+            LockSupport.parkNanos(Math.min(t, connectionReadyCheckIntervalNs));
+            if (Thread.interrupted())
+                throw new ConnectionGetInterruptedException("Interrupted while waiting for connections ready");
         }
+        return true;
     }
 
-    //Method-1.8: creates a template pooled connection on first connection
+    //Method-1.18: creates a statement cache for a new pooled connection,return null when not enabled
+    PreparedStatementCache createStatementCache() {
+        if (this.statementCacheSize <= 0) return null;
+        return new PreparedStatementCache(this.statementCacheSize, this.stmCacheHitCount, this.stmCacheMissCount, this.stmCacheEvictionCount);
+    }
+
+    //Method-1.19: creates a template pooled connection on first connection
     private PooledConnection createTemplatePooledConn(Connection rawCon) throws SQLException {
         //step1:get default value of property auto-commit from config or from first connection
         Boolean defaultAutoCommit = poolConfig.isDefaultAutoCommit();
@@ -468,29 +852,44 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             }
         }
 
-        //step6: check driver whether support 'isAlive' method
-        boolean supportIsValid = true;//assume support
-        try {
-            if (rawCon.isValid(this.aliveTestTimeout)) {
-                conValidTest = this;
-            } else {
-                supportIsValid = false;
-                if (this.printRuntimeLog) {
+        //step6: create alive test by configured policy(a custom alive test replaces built-in policies)
+        String aliveTestPolicy = this.poolConfig.getAliveTestPolicy();
+        BeeConnectionAliveTest customAliveTest = this.poolConfig.getAliveTest();
+        PooledConnectionAliveTest aliveTest = null;
+        if (customAliveTest != null) {
+            aliveTest = new PooledConnectionAliveTestByCustom(poolName, customAliveTest, aliveTestTimeout, printRuntimeLog);
+            aliveTestPolicy = customAliveTest.getClass().getName();
+        } else if (AliveTestPolicy.POLICY_NONE.equals(aliveTestPolicy)) {
+            aliveTest = new PooledConnectionAliveTestNone();
+        } else if (AliveTestPolicy.POLICY_AUTO.equals(aliveTestPolicy) || AliveTestPolicy.POLICY_IS_VALID.equals(aliveTestPolicy)) {
+            try {
+                if (rawCon.isValid(this.aliveTestTimeout)) {
+                    aliveTest = this;
+                    aliveTestPolicy = AliveTestPolicy.POLICY_IS_VALID;
+                } else if (this.printRuntimeLog) {
                     Log.warn("BeeCP({})'isAlive' method of connection not supported by driver", this.poolName);
                 }
+            } catch (Throwable e) {
+                if (this.printRuntimeLog)
+                    Log.warn("BeeCP({}) 'isAlive' method check failed for driver", this.poolName, e);
             }
-        } catch (Throwable e) {
-            supportIsValid = false;
-            if (this.printRuntimeLog)
-                Log.warn("BeeCP({}) 'isAlive' method check failed for driver", this.poolName, e);
+            if (aliveTest == null && AliveTestPolicy.POLICY_IS_VALID.equals(aliveTestPolicy))
+                throw new SQLException("Alive test policy[" + aliveTestPolicy + "]not supported by driver");
         }
 
         //step7:test driver whether support sql query timeout
-        if (!supportIsValid) {
+        if (aliveTest == null) {
             String conTestSql = this.poolConfig.getAliveTestSql();
             boolean supportQueryTimeout = validateTestSql(poolName, rawCon, conTestSql, aliveTestTimeout, defaultAutoCommit);//check test sql
-            conValidTest = new PooledConnectionAliveTestBySql(poolName, conTestSql, aliveTestTimeout, defaultAutoCommit, supportQueryTimeout, printRuntimeLog);
+            if (AliveTestPolicy.POLICY_CACHED_SQL.equals(aliveTestPolicy)) {
+                aliveTest = new PooledConnectionAliveTestByCachedSql(poolName, conTestSql, aliveTestTimeout, supportQueryTimeout, printRuntimeLog);
+            } else {
+                aliveTest = new PooledConnectionAliveTestBySql(poolName, conTestSql, aliveTestTimeout, defaultAutoCommit, supportQueryTimeout, printRuntimeLog);
+                aliveTestPolicy = AliveTestPolicy.POLICY_SQL;
+            }
         }
+        this.conValidTest = aliveTest;
+        this.aliveTestPolicyName = aliveTestPolicy;
 
         //step8: check driver whether support networkTimeout
         int defaultNetworkTimeout = 0;
@@ -504,7 +903,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             } else {//driver support networkTimeout
                 if (this.networkTimeoutExecutor == null) {
                     this.networkTimeoutExecutor = new ThreadPoolExecutor(poolMaxSize, poolMaxSize, 10, TimeUnit.SECONDS,
-                            new LinkedBlockingQueue<Runnable>(poolMaxSize), new PoolThreadThreadFactory("BeeCP(" + poolName + ")"));
+                            new LinkedBlockingQueue<Runnable>(poolMaxSize), new PoolThreadThreadFactory("BeeCP(" + poolName + ")-networkTimeoutRestThread"));
                     this.networkTimeoutExecutor.allowCoreThreadTimeOut(true);
                 }
                 rawCon.setNetworkTimeout(networkTimeoutExecutor, defaultNetworkTimeout);
@@ -520,7 +919,32 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             }
         }
 
-        //step9: create a base pooled connection for creation by clone
+        //step9: generate proxy classes specialized to driver classes(javassist is required at runtime)
+        ProxyObjectFactory proxyFactory = null;
+        if (poolConfig.isEnableDriverSpecializedProxy()) {
+            try {
+                Class.forName("javassist.ClassPool", false, FastConnectionPool.class.getClassLoader());
+                proxyFactory = ProxyClassGenerator.createDriverProxyFactory(rawCon, poolConfig.getAliveTestSql());
+            } catch (Throwable e) {
+                if (this.printRuntimeLog)
+                    Log.warn("BeeCP({})Failed to generate proxy classes on driver,prebuilt proxy classes are used", this.poolName, e);
+            }
+        }
+
+        //step10: resolve server-wide fatal errors by database product when eviction on them enabled
+        this.serverFatalErrors = null;
+        if (poolConfig.isEnableServerFatalEviction()) {
+            String productName = null;
+            try {
+                productName = rawCon.getMetaData().getDatabaseProductName();
+            } catch (Throwable e) {
+                if (this.printRuntimeLog)
+                    Log.warn("BeeCP({})Failed to get database product name from first connection", this.poolName, e);
+            }
+            this.serverFatalErrors = ServerFatalErrors.forProduct(productName);
+        }
+
+        //step11: create a base pooled connection for creation by clone
         return new PooledConnection(
                 this,
                 //1:defaultAutoCommit
@@ -547,7 +971,11 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
                 //7:others
                 poolConfig.getSqlExceptionCodeList(),
                 poolConfig.getSqlExceptionStateList(),
-                poolConfig.getSqlExceptionPredication());
+                poolConfig.getSqlExceptionPredication(),
+                proxyFactory,
+                this.clock,
+                this.maxLifetimeMs,
+                poolConfig.isEnableSessionStateCache());
     }
 
     //***************************************************************************************************************//
@@ -555,32 +983,70 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
     //***************************************************************************************************************//
     //Method-2.1:borrows a connection from pool(return a resulted wrapper on connection)
     public final Connection getConnection() throws SQLException {
-        return createProxyConnection(this.getPooledConnection());
+        return this.getPooledConnection().newProxyConnection();
     }
 
     //Method-2.2:borrows a XaConnection from pool(return a XA resulted wrapper on connection)
     public final XAConnection getXAConnection() throws SQLException {
         PooledConnection p = this.getPooledConnection();
-        ProxyConnectionBase proxyConn = createProxyConnection(p);
+        ProxyConnectionBase proxyConn = p.newProxyConnection();
         return new XaProxyConnection(proxyConn, this.isRawXaConnFactory ? new XaProxyResource(p.rawXaRes, proxyConn) : new XaResourceLocalImpl(proxyConn, p.defaultAutoCommit));
     }
 
-    //Method-2.3:borrows a pooled connection from pool
+    /**
+     * Method-2.3:borrows a connection without blocking,if not get an idle connection,then offer a borrower to wait queue,
+     * which completed by releasing thread or servant thread,and a shared timer completes it on timeout
+     */
+    public final BeeConnectionFuture getConnectionAsync() {
+        ConnectionFuture future = new ConnectionFuture(this);
+        if (this.poolState != POOL_READY) {
+            future.complete(new ConnectionGetForbiddenException("Access rejected,cause:pool was closed or in clearing"));
+            return future;
+        }
+
+        //1: try to catch an idle connection not requiring alive test(not test or create in caller thread)
+        PooledConnection p = this.searchIdle(this.getHomeStripe(), false);
+        if (p != null) {
+            this.completeAsyncBorrow(future, p);
+            return future;
+        }
+
+        //2: wait in queue for a released connection or one tested(created) by servant thread,timer scheduled before offer
+        //so that a transfer completion cancels it
+        Borrower b = future.borrower;
+        future.timeoutFuture = this.asyncTimeoutExecutor.schedule(new AsyncBorrowTimeoutTask(this, b), this.maxWaitNs, TimeUnit.NANOSECONDS);
+        this.waitQueue.offer(b);
+        if (b.state != null) this.waitQueue.remove(b);//timeout before offer
+        this.tryWakeupServantThread();
+        return future;
+    }
+
+    //Method-2.4:borrows a pooled connection from pool
     private PooledConnection getPooledConnection() throws SQLException {
         if (this.poolState != POOL_READY)
             throw new ConnectionGetForbiddenException("Access rejected,cause:pool was closed or in clearing");
 
-        //0: get the last used connection from threadLocal and try to hold it via cas
-        Borrower b = this.threadLocal.get().get();
-        if (b != null) {
-            PooledConnection p = b.lastUsed;
-            if (p != null && p.state == CON_IDLE && ConStUpd.compareAndSet(p, CON_IDLE, CON_USING)) {
-                if (this.testOnBorrow(p)) return b.lastUsed = p;
-                b.lastUsed = null;
+        //0: get used connections from threadLocal and try to hold one of them via cas
+        Borrower b = null;
+        if (this.enableThreadLocal) {
+            b = this.threadLocal.get().get();
+            if (b != null) {
+                PooledConnection[] usedArray = b.usedArray;
+                for (int i = 0, l = usedArray.length; i < l; i++) {
+                    PooledConnection p = usedArray[i];
+                    if (p != null && this.tryCatch(p)) {
+                        if (this.testOnBorrow(p)) {
+                            this.threadLocalHitCount.increment(b.homeStripe);
+                            return p;
+                        }
+                        usedArray[i] = null;
+                    }
+                }
+            } else {
+                b = this.createBorrower();
+                this.threadLocal.set(new WeakReference<Borrower>(b));
             }
-        } else {
-            b = new Borrower();
-            this.threadLocal.set(new WeakReference<Borrower>(b));
+            this.threadLocalMissCount.increment(b.homeStripe);
         }
 
         long deadline = System.nanoTime();
@@ -594,11 +1060,14 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
 
         //2: try to search idle one,if not get,then try to create new one when pool not full
         PooledConnection p;
+        long acquiredTime = this.enableAdaptiveSemaphore ? System.nanoTime() : 0L;
         try {
-            p = this.searchOrCreate();
+            p = this.searchOrCreate(b != null ? b.homeStripe : this.getHomeStripe());
             if (p != null) {
                 semaphore.release();
-                return b.lastUsed = p;
+                if (b != null) b.cacheUsed(p);
+                if (acquiredTime > 0L) this.recordBorrowLatency(acquiredTime);
+                return p;
             }
         } catch (SQLException e) {
             semaphore.release();
@@ -606,7 +1075,11 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
 
         //3:try to get a transferred connection
-        b.state = null;
+        if (b == null) {//borrower without threadLocal created only when need wait in queue
+            b = new Borrower(0, 0);
+        } else {
+            b.state = null;
+        }
         this.waitQueue.offer(b);//self in,self out
         SQLException cause = null;
         deadline += this.maxWaitNs;
@@ -618,7 +1091,9 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
                 if (this.transferPolicy.tryCatch(p) && this.testOnBorrow(p)) {
                     this.waitQueue.remove(b);
                     this.semaphore.release();
-                    return b.lastUsed = p;
+                    if (this.enableThreadLocal) b.cacheUsed(p);
+                    if (acquiredTime > 0L) this.recordBorrowLatency(acquiredTime);
+                    return p;
                 }
             } else if (s instanceof Throwable) {
                 this.waitQueue.remove(b);
@@ -646,53 +1121,136 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         } while (true);//while
     }
 
-    //Method-2.4: search an idle connection,if not get,then try to create new one when capacity not reach max
-    private PooledConnection searchOrCreate() throws SQLException {
-        PooledConnection[] array = this.pooledArray;
-        for (PooledConnection p : array) {
-            if (p.state == CON_IDLE && ConStUpd.compareAndSet(p, CON_IDLE, CON_USING) && this.testOnBorrow(p))
-                return p;
-        }
-        if (this.pooledArray.length < this.poolMaxSize)
+    //Method-2.5: search an idle connection,if not get,then try to create new one when capacity not reach max
+    private PooledConnection searchOrCreate(int homeStripe) throws SQLException {
+        PooledConnection p = this.searchIdle(homeStripe, true);
+        if (p != null) return p;
+        if (this.totalSize.get() < this.poolMaxSize)
             return this.createPooledConn(CON_USING);
         return null;
     }
 
-    //Method-2.5: try to wake up the servant thread in waiting state
+    //Method-2.6: pick idle slots from bitmap index,bits of each word are visited from a start slot decided by
+    //selection policy(home stripe of borrower,lowest slot or next of last selected),then steal from other words when not get.
+    //connections requiring alive test are skipped when test not allowed(left to servant thread)
+    private PooledConnection searchIdle(int homeStripe, boolean aliveTestAllowed) {
+        AtomicLongArray bitArray = this.idleSlotBits;
+        AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+        int l = array.length(), wordCount = bitArray.length(), start;
+        if (this.idleSelectPolicyCode == IDLE_SELECT_LOWEST_SLOT) {
+            start = 0;
+        } else if (this.idleSelectPolicyCode == IDLE_SELECT_ROUND_ROBIN) {
+            start = this.idleSelectCursor.get() % l;
+        } else {
+            int c = this.stripeCount;
+            start = homeStripe % c * l / c;
+        }
+
+        int offset = start & 63;
+        for (int n = 0, w = start >>> 6; n < wordCount; n++) {
+            long bits = Long.rotateRight(bitArray.get(w), offset);
+            while (bits != 0L) {
+                int i = (w << 6) + ((Long.numberOfTrailingZeros(bits) + offset) & 63);
+                PooledConnection p = array.get(i);
+                if (p != null && (aliveTestAllowed || !this.needAliveTest(p)) && this.tryCatch(p) && (!aliveTestAllowed || this.testOnBorrow(p))) {
+                    if (this.idleSelectPolicyCode == IDLE_SELECT_ROUND_ROBIN) this.idleSelectCursor.lazySet(i + 1);
+                    return p;
+                }
+                bits &= bits - 1L;//clear lowest bit and try next
+            }
+            if (++w == wordCount) w = 0;
+        }
+        return null;
+    }
+
+    //set bit of an idle slot in bitmap index
+    private void markIdleSlot(int slotIndex) {
+        AtomicLongArray bitArray = this.idleSlotBits;
+        int w = slotIndex >>> 6;
+        if (w >= bitArray.length()) return;//bitmap replaced on restart
+        long mask = 1L << slotIndex, bits;
+        do {
+            bits = bitArray.get(w);
+        } while ((bits & mask) == 0L && !bitArray.compareAndSet(w, bits, bits | mask));
+    }
+
+    //clear bit of a slot in bitmap index
+    private void unmarkIdleSlot(int slotIndex) {
+        AtomicLongArray bitArray = this.idleSlotBits;
+        int w = slotIndex >>> 6;
+        if (w >= bitArray.length()) return;//bitmap replaced on restart
+        long mask = 1L << slotIndex, bits;
+        do {
+            bits = bitArray.get(w);
+        } while ((bits & mask) != 0L && !bitArray.compareAndSet(w, bits, bits & ~mask));
+    }
+
+    //record borrow time after semaphore acquired,which is a feedback on resizing permits of semaphore
+    private void recordBorrowLatency(long acquiredTime) {
+        this.borrowLatencyNanos.addAndGet(System.nanoTime() - acquiredTime);
+        this.borrowLatencyCount.incrementAndGet();
+    }
+
+    //Method-2.7: creates a borrower with a home stripe assigned by its thread id
+    private Borrower createBorrower() {
+        return new Borrower(this.threadLocalCacheSize, this.getHomeStripe());
+    }
+
+    private int getHomeStripe() {
+        return (int) (Thread.currentThread().getId() % this.stripeCount);
+    }
+
+    //Method-2.8: try to wake up the servant thread in waiting state(also when try count is full,which may be left
+    //by calls on empty wait queue,then an asynchronous borrower waiting for a tested idle connection is not missed)
     private void tryWakeupServantThread() {
         int c;
         do {
             c = this.servantTryCount.get();
-            if (c >= this.poolMaxSize) return;
+            if (c >= this.poolMaxSize) break;
         } while (!this.servantTryCount.compareAndSet(c, c + 1));
         if (!this.waitQueue.isEmpty() && this.servantState.get() == THREAD_WAITING && this.servantState.compareAndSet(THREAD_WAITING, THREAD_WORKING))
             LockSupport.unpark(this);
     }
 
     /**
-     * Method-2.6: return a borrowed connection to pool,and try to transfer it  to one of waiters
+     * Method-2.9: return a borrowed connection to pool,and try to transfer it  to one of waiters
      *
      * @param p released connection
      */
     public final void recycle(PooledConnection p) {
-        if (isCompeteMode) p.state = CON_IDLE;
+        if (this.needRetire(p) && ConStUpd.compareAndSet(p, CON_USING, CON_RETIRING)) {
+            this.queueRetireTask(p);//replace it in background
+            return;
+        }
+        if (isCompeteMode && !this.releaseToIdle(p)) return;//closed by other thread
         Iterator<Borrower> iterator = this.waitQueue.iterator();
 
         while (iterator.hasNext()) {
             Borrower b = iterator.next();
             if (p.state != stateCodeOnRelease) return;
-            if (b.state == null && BorrowStUpd.compareAndSet(b, null, p)) {
-                LockSupport.unpark(b.thread);
-                return;
+            if (b.state != null) continue;
+
+            if (b.future == null) {
+                if (BorrowStUpd.compareAndSet(b, null, p)) {
+                    LockSupport.unpark(b.thread);
+                    return;
+                }
+            } else if (this.transferPolicy.tryCatch(p)) {//catch it for asynchronous borrower and complete its future
+                if (BorrowStUpd.compareAndSet(b, null, p)) {
+                    this.waitQueue.remove(b);
+                    this.completeAsyncBorrow(b.future, p);
+                    return;
+                }
+                if (isCompeteMode) this.releaseToIdle(p);//asynchronous borrower has been done(timeout or cancelled)
             }
         }
 
-        if (isFairMode) p.state = CON_IDLE;
+        if (isFairMode) this.releaseToIdle(p);
         tryWakeupServantThread();
     }
 
     /**
-     * Method-2.7: transfer an exception to one of waiters in queue
+     * Method-2.10: transfer an exception to one of waiters in queue
      *
      * @param e transferred exception
      */
@@ -700,15 +1258,42 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         Iterator<Borrower> iterator = waitQueue.iterator();
         while (iterator.hasNext()) {
             Borrower b = iterator.next();
-            if (b.state == null && BorrowStUpd.compareAndSet(b, null, e)) {
+            if (b.future != null) {
+                if (this.abortAsyncBorrow(b, e instanceof SQLException ? e : new ConnectionGetException(e))) return;
+            } else if (b.state == null && BorrowStUpd.compareAndSet(b, null, e)) {
                 LockSupport.unpark(b.thread);
                 return;
             }
         }
     }
 
+    //Method-2.11: complete future of asynchronous borrower with a proxy connection on a caught pooled connection
+    private void completeAsyncBorrow(ConnectionFuture future, PooledConnection p) {
+        try {
+            future.complete(p.newProxyConnection());
+        } catch (SQLException e) {
+            future.complete(e);
+        }
+    }
+
     /**
-     * Method-2.8: remove a bad connection with specified reason
+     * Method-2.12: complete asynchronous borrower with a failure cause,if it is not done
+     *
+     * @param b     asynchronous borrower
+     * @param cause is a sql exception or cancellation exception
+     * @return a boolean,true that the borrower has been completed by this call
+     */
+    final boolean abortAsyncBorrow(Borrower b, Object cause) {
+        if (b.state == null && BorrowStUpd.compareAndSet(b, null, cause)) {
+            this.waitQueue.remove(b);
+            b.future.complete(cause);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Method-2.13: remove a bad connection with specified reason
      *
      * @param p bad connection
      */
@@ -718,12 +1303,12 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
     }
 
     /**
-     * Method-2.9: alive test on a borrowed connection
+     * Method-2.14: alive test on a borrowed connection
      *
      * @return boolean true means the checked connection is alive;false,it is bad
      */
     private boolean testOnBorrow(PooledConnection p) {
-        if (System.currentTimeMillis() - p.lastAccessTime > this.aliveAssumeTimeMs && !this.conValidTest.isAlive(p)) {
+        if (this.needAliveTest(p) && !this.testAlive(p)) {
             this.removePooledConn(p, DESC_RM_BAD);
             this.tryWakeupServantThread();
             return false;
@@ -732,16 +1317,79 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
+    //check a connection whether exceeds alive assume time since last access and last alive test
+    private boolean needAliveTest(PooledConnection p) {
+        long now = this.clock.currentTimeMillis();
+        return now - p.lastAccessTime > this.aliveAssumeTimeMs && now - p.lastAliveTime > this.aliveAssumeTimeMs;
+    }
+
+    //Method-2.15: reset a dirty returned connection on reset executor,it is published to idle after reset,return false when not enabled
+    final boolean tryRecycleAsync(PooledConnection p) {
+        if (this.resetExecutor == null || !ConStUpd.compareAndSet(p, CON_USING, CON_RESETTING)) return false;
+        try {
+            this.resetExecutor.execute(new PooledConnectionResetTask(p, false));
+            return true;
+        } catch (RejectedExecutionException e) {//executor shutdown,reset on caller thread
+            ConStUpd.compareAndSet(p, CON_RESETTING, CON_USING);
+            return false;
+        }
+    }
+
+    //Method-2.16: alive test on a connection,counts tests,failures and time cost of working alive test
+    private boolean testAlive(PooledConnection p) {
+        long startTime = System.nanoTime();
+        boolean alive;
+        try {
+            alive = this.conValidTest.isAlive(p);
+        } catch (Throwable e) {
+            alive = false;
+        }
+        this.aliveTestNanos.addAndGet(System.nanoTime() - startTime);
+        this.aliveTestCount.incrementAndGet();
+        if (alive) {
+            p.lastAccessTime = this.clock.currentTimeMillis();
+        } else {
+            this.aliveTestFailedCount.incrementAndGet();
+        }
+        return alive;
+    }
+
     public final int getStateCodeOnRelease() {
         return CON_IDLE;
     }
 
+    //catch an idle connection via cas and decrease idle count
     public final boolean tryCatch(PooledConnection p) {
-        return p.state == CON_IDLE && ConStUpd.compareAndSet(p, CON_IDLE, CON_USING);
+        if (p.state == CON_IDLE && ConStUpd.compareAndSet(p, CON_IDLE, CON_USING)) {
+            this.idleSize.decrementAndGet();
+            this.unmarkIdleSlot(p.slotIndex);
+            return true;
+        }
+        return false;
+    }
+
+    //set a using connection to be idle via cas and increase idle count
+    private boolean releaseToIdle(PooledConnection p) {
+        if (ConStUpd.compareAndSet(p, CON_USING, CON_IDLE)) {
+            this.idleSize.incrementAndGet();
+            this.markIdleSlot(p.slotIndex);
+            return true;
+        }
+        return false;
+    }
+
+    //set an idle connection to be closed via cas and decrease idle count
+    private boolean tryClose(PooledConnection p) {
+        if (ConStUpd.compareAndSet(p, CON_IDLE, CON_CLOSED)) {
+            this.idleSize.decrementAndGet();
+            this.unmarkIdleSlot(p.slotIndex);
+            return true;
+        }
+        return false;
     }
 
     //***************************************************************************************************************//
-    //                       3: Pooled connection idle-timeout/hold-timeout scan methods(3)                          //                                                                                  //
+    //                       3: Pooled connection idle-timeout/hold-timeout scan methods(11)                         //                                                                                  //
     //***************************************************************************************************************//
     //Method-3.1: stop all inner threads of pool
     private void shutdownPoolThreads() {
@@ -763,7 +1411,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
                 servantTryCount.decrementAndGet();
 
                 try {
-                    PooledConnection p = searchOrCreate();
+                    PooledConnection p = searchOrCreate(0);
                     if (p != null) recycle(p);
                 } catch (Throwable e) {
                     this.transferException(e);
@@ -778,7 +1426,8 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
     }
 
     /**
-     * Method-3.3: close idle timeout connections when available permit size of semaphore is full
+     * Method-3.3: close idle timeout connections when available permit size of semaphore is full,
+     * ping idle connections over keepalive time when no borrowers are waiting
      */
     private void closeIdleTimeoutConnection() {
         //step1:print pool info before clean
@@ -787,18 +1436,30 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             Log.info("BeeCP({})-before idle clear,{idle:{},using:{},semaphore-waiting:{},transfer-waiting:{}}", this.poolName, vo.getIdleSize(), vo.getUsingSize(), vo.getSemaphoreWaitingSize(), vo.getTransferWaitingSize());
         }
 
-        //step2:remove idle timeout and hold timeout
-        PooledConnection[] array = this.pooledArray;
-        for (PooledConnection p : array) {
+        //step2:remove idle timeout and hold timeout,ping idle connections in small batches when keepalive time reached
+        int keepaliveBatch = this.keepaliveTimeMs > 0L && this.poolState == POOL_READY ? this.maxConcurrentAliveTest : 0;
+        AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+        for (int i = 0, l = array.length(); i < l; i++) {
+            PooledConnection p = array.get(i);
+            if (p == null) continue;
             final int state = p.state;
-            if (state == CON_IDLE && this.semaphore.availablePermits() == this.semaphoreSize) {//no borrowers on semaphore
-                boolean isTimeoutInIdle = System.currentTimeMillis() - p.lastAccessTime >= this.idleTimeoutMs;
-                if (isTimeoutInIdle && ConStUpd.compareAndSet(p, state, CON_CLOSED)) {//need close idle
-                    this.removePooledConn(p, DESC_RM_IDLE);
-                    this.tryWakeupServantThread();
+            if (state == CON_IDLE) {
+                boolean isTimeoutInIdle = this.clock.currentTimeMillis() - p.lastAccessTime >= this.idleTimeoutMs;
+                if (isTimeoutInIdle && this.semaphore.availablePermits() == this.semaphoreSize) {//no borrowers on semaphore
+                    if (this.tryClose(p)) {//need close idle
+                        this.removePooledConn(p, DESC_RM_IDLE);
+                        this.tryWakeupServantThread();
+                    }
+                } else if (this.needRetire(p)) {//kept borrowable until replaced,not queued again at next scan
+                    if (!p.retireQueued) this.queueRetireTask(p);
+                } else if (keepaliveBatch > 0 && this.aliveTestingSize.get() < this.maxConcurrentAliveTest
+                        && this.waitQueue.isEmpty() && !this.semaphore.hasQueuedThreads()
+                        && this.clock.currentTimeMillis() - Math.max(p.lastAccessTime, p.lastAliveTime) >= this.keepaliveTimeMs
+                        && this.tryCatchToTestAlive(p, true)) {
+                    keepaliveBatch--;//remained idle connections pinged at next scan
                 }
             } else if (state == CON_USING && supportHoldTimeout) {
-                if (System.currentTimeMillis() - p.lastAccessTime - holdTimeoutMs >= 0L) {//hold timeout
+                if (this.clock.currentTimeMillis() - p.lastAccessTime - holdTimeoutMs >= 0L) {//hold timeout
                     ProxyConnectionBase proxyInUsing = p.proxyInUsing;
                     if (proxyInUsing != null) {
                         oclose(proxyInUsing);
@@ -820,6 +1481,192 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
+    /**
+     * Method-3.4: resize permits of pool semaphore by AIMD in adaptive mode.
+     * decrease by a quarter when borrowers wait in queue with holding permits and latency after semaphore inflates
+     * to double of baseline(or no borrow done in window);increase by one when borrowers wait on semaphore while
+     * idle connections exist or pool not full.
+     */
+    private void adjustSemaphoreSize() {
+        if (this.poolState != POOL_READY) return;
+        long count = this.borrowLatencyCount.getAndSet(0L);
+        long nanos = this.borrowLatencyNanos.getAndSet(0L);
+
+        boolean latencyInflated = count == 0L;
+        if (count > 0L) {
+            long avgLatency = nanos / count;
+            if (this.baselineLatencyNanos == 0L || avgLatency < this.baselineLatencyNanos) {
+                this.baselineLatencyNanos = avgLatency;
+            } else {
+                latencyInflated = avgLatency > this.baselineLatencyNanos << 1;
+                this.baselineLatencyNanos += (avgLatency - this.baselineLatencyNanos) >> 5;//drift up slowly
+            }
+        }
+
+        int size = this.semaphoreSize, newSize = size;
+        if (this.getTransferWaitingSize() > 0 && latencyInflated) {
+            newSize = Math.max(this.minSemaphoreSize, size - Math.max(1, size >> 2));
+        } else if (this.semaphore.getQueueLength() > 0 && (this.getIdleSize() > 0 || this.totalSize.get() < this.poolMaxSize)) {
+            newSize = Math.min(this.maxSemaphoreSize, size + 1);
+        }
+
+        if (newSize > size) {
+            this.semaphoreSize = newSize;
+            this.semaphoreIncreasedCount++;
+            this.semaphore.release(newSize - size);
+        } else if (newSize < size) {
+            this.semaphoreSize = newSize;
+            this.semaphoreDecreasedCount++;
+            this.semaphore.reducePermits(size - newSize);
+        } else {
+            return;
+        }
+        if (this.printRuntimeLog)
+            Log.info("BeeCP({})resized permits of semaphore from {} to {}", this.poolName, size, newSize);
+    }
+
+    /**
+     * Method-3.5: catch idle connections to test them in background before they exceed alive assume time,
+     * then borrowers only check their alive time. Catching stops when borrowers are waiting.
+     */
+    private void scanIdleToTestAlive() {
+        if (this.poolState != POOL_READY) return;
+        long testThreshold = Math.max(0L, this.aliveAssumeTimeMs - this.idleAliveTestIntervalMs);
+        AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+        for (int i = 0, l = array.length(); i < l; i++) {
+            if (this.aliveTestingSize.get() >= this.maxConcurrentAliveTest) return;
+            if (!this.waitQueue.isEmpty() || this.semaphore.hasQueuedThreads()) return;//not take connections which borrowers need
+
+            PooledConnection p = array.get(i);
+            if (p == null || p.state != CON_IDLE) continue;
+            if (this.clock.currentTimeMillis() - Math.max(p.lastAccessTime, p.lastAliveTime) < testThreshold) continue;
+            this.tryCatchToTestAlive(p, false);
+        }
+    }
+
+    //Method-3.6: catch an idle connection and submit an alive test task on it
+    private boolean tryCatchToTestAlive(PooledConnection p, boolean keepalive) {
+        if (ConStUpd.compareAndSet(p, CON_IDLE, CON_TESTING)) {
+            this.idleSize.decrementAndGet();
+            this.unmarkIdleSlot(p.slotIndex);
+            this.aliveTestingSize.incrementAndGet();
+            this.aliveTestExecutor.execute(new IdleAliveTestTask(this, p, keepalive));
+            return true;
+        }
+        return false;
+    }
+
+    //Method-3.7: test a caught idle connection in background,return it to idle after passed,otherwise remove it
+    private void testIdleAlive(PooledConnection p, boolean keepalive) {
+        try {
+            long lastAccessTime = p.lastAccessTime;
+            boolean alive = this.testAlive(p);
+            if (keepalive) {
+                this.keepaliveCount.incrementAndGet();
+                if (!alive) this.keepaliveFailedCount.incrementAndGet();
+            }
+            if (alive) {
+                p.lastAccessTime = lastAccessTime;//background test is not an access,keep it for idle timeout
+                p.lastAliveTime = this.clock.currentTimeMillis();
+                if (ConStUpd.compareAndSet(p, CON_TESTING, CON_IDLE)) {
+                    this.idleSize.incrementAndGet();
+                    this.markIdleSlot(p.slotIndex);
+                    if (!this.waitQueue.isEmpty()) this.tryWakeupServantThread();
+                }
+            } else {
+                this.removePooledConn(p, DESC_RM_BAD);
+                this.tryWakeupServantThread();
+            }
+        } finally {
+            this.aliveTestingSize.decrementAndGet();
+        }
+    }
+
+    //Method-3.8: catch an idle connection to retire it and decrease idle count
+    private boolean tryCatchToRetire(PooledConnection p) {
+        if (ConStUpd.compareAndSet(p, CON_IDLE, CON_RETIRING)) {
+            this.idleSize.decrementAndGet();
+            this.unmarkIdleSlot(p.slotIndex);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Method-3.9: replace a lifetime expired connection or a connection of older generation with a new one created in its slot
+     * (size of pooled connections not decreased).An idle one keeps borrowable while the new one is creating and is swapped out
+     * only if it is still idle,otherwise it is retired on return.When creation failed,a lifetime expired one is kept in pool
+     * and retried at next scan,and a connection of older generation is removed.
+     */
+    private void retirePooledConn(PooledConnection p) {
+        p.retireQueued = false;
+        int state = p.state;
+        if (state != CON_RETIRING && state != CON_IDLE) return;//borrowed,retire it on return
+        if (this.poolState == POOL_READY) {
+            try {
+                if (this.createPooledConn(CON_IDLE, p) != null && !this.waitQueue.isEmpty())
+                    this.tryWakeupServantThread();
+                return;//null when borrowed or removed during creation
+            } catch (Throwable e) {
+                if (this.printRuntimeLog)
+                    Log.warn("BeeCP({})Failed to create a new connection to replace a retiring one", this.poolName, e);
+            }
+
+            if (p.generation == this.generation.get()) {//keep lifetime expired one borrowable
+                if (ConStUpd.compareAndSet(p, CON_RETIRING, CON_IDLE)) {
+                    this.idleSize.incrementAndGet();
+                    this.markIdleSlot(p.slotIndex);
+                    this.tryWakeupServantThread();
+                }
+                return;
+            }
+        }
+        this.removePooledConn(p, p.generation != this.generation.get() ? DESC_RM_GENERATION : DESC_RM_LIFETIME);
+        this.tryWakeupServantThread();
+    }
+
+    //Method-3.10: queue a task to replace a connection in background,remove it directly when the task is rejected
+    private void queueRetireTask(PooledConnection p) {
+        p.retireQueued = true;
+        try {
+            this.creationExecutor.execute(new ConnectionRetireTask(this, p));
+        } catch (RejectedExecutionException e) {//pool closed
+            this.removePooledConn(p, DESC_RM_LIFETIME);
+            this.tryWakeupServantThread();
+        }
+    }
+
+    //Method-3.11: check a connection whether expired in lifetime or created in an older generation
+    private boolean needRetire(PooledConnection p) {
+        return p.generation != this.generation.get() || (this.supportMaxLifetime && this.clock.currentTimeMillis() >= p.retireTime);
+    }
+
+    /**
+     * Method-3.12: increase generation on a server-wide fatal error(server shutdown,restart or failover),then idle connections
+     * of older generations are retired in background and borrowed ones are retired on return.Only the first error seen
+     * in a generation increases it.
+     *
+     * @param p connection seeing the error
+     * @param e sql exception thrown from the connection
+     * @return true when the error is a server-wide fatal error
+     */
+    final boolean tryEvictOnServerFatalError(PooledConnection p, SQLException e) {
+        ServerFatalErrors errors = this.serverFatalErrors;
+        if (errors == null || !errors.isServerFatal(e)) return false;
+
+        int oldGeneration = p.generation;
+        if (this.generation.compareAndSet(oldGeneration, oldGeneration + 1)) {
+            Log.warn("BeeCP({})Server-wide fatal error(code:{},state:{})detected,connections of older generations are evicted", this.poolName, e.getErrorCode(), e.getSQLState());
+            AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+            for (int i = 0, l = array.length(); i < l; i++) {
+                PooledConnection c = array.get(i);
+                if (c != null && c.state == CON_IDLE && c.generation != oldGeneration + 1 && !c.retireQueued)
+                    this.queueRetireTask(c);
+            }
+        }
+        return true;
+    }
+
     //***************************************************************************************************************//
     //                                  4: Pool clear/close methods(5)                                               //                                                                                  //
     //***************************************************************************************************************//
@@ -838,6 +1685,8 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             Log.info("BeeCP({})begin to remove all connections", this.poolName);
             this.removeAllConnections(forceCloseUsing, DESC_RM_CLEAR);
             Log.info("BeeCP({})removed all connections", this.poolName);
+            this.creationFailureCount.set(0);
+            this.breakerState.set(BREAKER_CLOSED);//probes exit in clearing,cleared pool begins with a closed breaker
 
             try {
                 if (config != null) {
@@ -856,19 +1705,15 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             } finally {
                 this.poolState = POOL_READY;//reset pool state to be ready once pool restart failed with the new config
                 Log.info("BeeCP({})reset pool state to ready after clearing", this.poolName);
+                if (this.breakerState.get() == BREAKER_OPEN) this.startCreationProbe();//reopened by creation in restart
             }
         }
     }
 
     //Method-4.3: remove all connections from pool
     private void removeAllConnections(boolean force, String source) {
-        //1:interrupt waiters on lock(maybe stuck on socket)
-        try {
-            interruptQueuedWaitersOnLock(this.pooledArrayLock);
-            interruptExclusiveOwnerThread(this.pooledArrayLock);
-        } catch (Throwable e) {
-            Log.info("BeeCP({})Failed to interrupt threads on lock", e);
-        }
+        //1:interrupt creating threads and waiters on creation(maybe stuck on socket)
+        this.interruptThreadsOnCreationLock();
 
         //2:interrupt waiters on semaphore
         this.semaphore.interruptWaitingThreads();
@@ -877,28 +1722,30 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
 
         //3:clear all connections
         while (true) {
-            PooledConnection[] array = this.pooledArray;
-            for (PooledConnection p : array) {
+            AtomicReferenceArray<PooledConnection> array = this.pooledArray;
+            for (int i = 0, l = array.length(); i < l; i++) {
+                PooledConnection p = array.get(i);
+                if (p == null) continue;
                 final int state = p.state;
                 if (state == CON_IDLE) {
-                    if (ConStUpd.compareAndSet(p, CON_IDLE, CON_CLOSED)) this.removePooledConn(p, source);
+                    if (this.tryClose(p)) this.removePooledConn(p, source);
                 } else if (state == CON_USING) {
                     ProxyConnectionBase proxyInUsing = p.proxyInUsing;
                     if (proxyInUsing != null) {
-                        if (force || (supportHoldTimeout && System.currentTimeMillis() - p.lastAccessTime >= holdTimeoutMs)) {//force close or hold timeout
+                        if (force || (supportHoldTimeout && this.clock.currentTimeMillis() - p.lastAccessTime >= holdTimeoutMs)) {//force close or hold timeout
                             oclose(proxyInUsing);
-                            if (ConStUpd.compareAndSet(p, CON_IDLE, CON_CLOSED))
+                            if (this.tryClose(p))
                                 this.removePooledConn(p, source);
                         }
                     } else {
                         this.removePooledConn(p, source);
                     }
-                } else if (state == CON_CLOSED) {
+                } else if (state == CON_CLOSED || state == CON_RETIRING) {//replacement of a retiring one fails on its removed slot
                     this.removePooledConn(p, source);
                 }
             } // for
 
-            if (this.pooledArray.length == 0) break;
+            if (this.totalSize.get() == 0) break;
             LockSupport.parkNanos(this.delayTimeForNextClearNs);//delay to clear remained pooled connections
         } // while
 
@@ -926,6 +1773,11 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
                 this.shutdownPoolThreads();
                 this.removeAllConnections(this.poolConfig.isForceCloseUsingOnClear(), DESC_RM_DESTROY);
                 if (networkTimeoutExecutor != null) this.networkTimeoutExecutor.shutdownNow();
+                if (aliveTestExecutor != null) this.aliveTestExecutor.shutdownNow();
+                if (creationExecutor != null) this.creationExecutor.shutdownNow();
+                if (probeExecutor != null) this.probeExecutor.shutdownNow();
+                if (resetExecutor != null) this.resetExecutor.shutdown();//closing of removed connections in queue not dropped
+                this.asyncTimeoutExecutor.shutdownNow();
 
                 try {
                     Runtime.getRuntime().removeShutdownHook(this.exitHook);
@@ -942,7 +1794,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
     }
 
     //***************************************************************************************************************//
-    //                                  5: Pool controller/jmx methods(15)                                              //                                                                                  //
+    //                                  5: Pool controller/jmx methods(17)                                              //                                                                                  //
     //***************************************************************************************************************//
     //Method-5.1: indicator on runtime log print,true:enable on;false: enable off
     boolean isPrintRuntimeLog() {
@@ -953,25 +1805,20 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         printRuntimeLog = indicator;
     }
 
-    //Method-5.2: the length of array stores pooled connections
+    //Method-5.2: size of pooled connections in slots
     public int getTotalSize() {
-        return this.pooledArray.length;
+        return this.totalSize.get();
     }
 
-    //Method-5.3: size of idle pooled connections
+    //Method-5.3: size of idle pooled connections(count maybe negative in a moment of slot filling)
     public int getIdleSize() {
-        int idleSize = 0;
-        PooledConnection[] array = this.pooledArray;
-        //for (int i = 0, l = array.length; i < l; i++) {
-        for (PooledConnection p : array) {
-            if (p.state == CON_IDLE) idleSize++;
-        }
-        return idleSize;
+        int idle = this.idleSize.get();
+        return (idle > 0) ? idle : 0;
     }
 
     //Method-5.4: size of using pooled connections
     public int getUsingSize() {
-        int active = this.pooledArray.length - this.getIdleSize();
+        int active = this.totalSize.get() - this.getIdleSize();
         return (active > 0) ? active : 0;
     }
 
@@ -998,7 +1845,17 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         return size;
     }
 
-    //Method-5.8: register jmx
+    //Method-5.9: state of circuit breaker on creation
+    public String getCreationBreakerState() {
+        return BREAKER_STATE_NAMES[this.breakerState.get()];
+    }
+
+    //Method-5.10: count of transitions to open state of circuit breaker on creation
+    public long getCreationBreakerOpenCount() {
+        return this.breakerOpenCount.get();
+    }
+
+    //Method-5.11: register jmx
     private void registerJmx() {
         if (poolConfig.isEnableJmx()) {
             MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
@@ -1007,7 +1864,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //Method-5.9: register jmx bean of pool
+    //Method-5.12: register jmx bean of pool
     private void registerJmxBean(MBeanServer mBeanServer, String regName, Object bean) {
         try {
             ObjectName jmxRegName = new ObjectName(regName);
@@ -1019,7 +1876,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //Method-5.10: unregister jmx
+    //Method-5.13: unregister jmx
     private void unregisterJmx() {
         if (this.poolConfig.isEnableJmx()) {
             MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
@@ -1028,7 +1885,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //Method-5.11: jmx unregister
+    //Method-5.14: jmx unregister
     private void unregisterJmxBean(MBeanServer mBeanServer, String regName) {
         try {
             ObjectName jmxRegName = new ObjectName(regName);
@@ -1040,13 +1897,10 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //Method-5.12: pooledConnection valid test method by connection method 'isAlive'
+    //Method-5.15: pooledConnection valid test method by connection method 'isAlive'
     public final boolean isAlive(final PooledConnection p) {
         try {
-            if (p.rawConn.isValid(this.aliveTestTimeout)) {
-                p.lastAccessTime = System.currentTimeMillis();
-                return true;
-            }
+            if (p.rawConn.isValid(this.aliveTestTimeout)) return true;
         } catch (Throwable e) {
             if (this.printRuntimeLog)
                 Log.warn("BeeCP({})Failed to test connection with 'isAlive' method", this.poolName, e);
@@ -1054,7 +1908,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         return false;
     }
 
-    //Method-5.13: creates monitor view object,some runtime info of pool may filled into this object
+    //Method-5.16: creates monitor view object,some runtime info of pool may filled into this object
     private FastConnectionPoolMonitorVo createPoolMonitorVo() {
         Thread currentThread = Thread.currentThread();
         this.poolThreadId = currentThread.getId();
@@ -1068,7 +1922,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         return new FastConnectionPoolMonitorVo();
     }
 
-    //Method-5.14: pool monitor vo
+    //Method-5.17: pool monitor vo
     public BeeConnectionPoolMonitorVo getPoolMonitorVo() {
         monitorVo.setPoolName(poolName);
         monitorVo.setPoolMode(poolMode);
@@ -1084,6 +1938,22 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         monitorVo.setUsingSize(totSize - idleSize);
         monitorVo.setSemaphoreWaitingSize(this.getSemaphoreWaitingSize());
         monitorVo.setTransferWaitingSize(this.getTransferWaitingSize());
+        monitorVo.setThreadLocalHitCount(this.threadLocalHitCount.sum());
+        monitorVo.setThreadLocalMissCount(this.threadLocalMissCount.sum());
+        monitorVo.setBorrowSemaphoreSize(this.semaphoreSize);
+        monitorVo.setSemaphoreIncreasedCount(this.semaphoreIncreasedCount);
+        monitorVo.setSemaphoreDecreasedCount(this.semaphoreDecreasedCount);
+        monitorVo.setStatementCacheHitCount(this.stmCacheHitCount.get());
+        monitorVo.setStatementCacheMissCount(this.stmCacheMissCount.get());
+        monitorVo.setStatementCacheEvictionCount(this.stmCacheEvictionCount.get());
+        monitorVo.setAliveTestPolicy(this.aliveTestPolicyName);
+        monitorVo.setAliveTestCount(this.aliveTestCount.get());
+        monitorVo.setAliveTestFailedCount(this.aliveTestFailedCount.get());
+        monitorVo.setAliveTestNanos(this.aliveTestNanos.get());
+        monitorVo.setKeepaliveCount(this.keepaliveCount.get());
+        monitorVo.setKeepaliveFailedCount(this.keepaliveFailedCount.get());
+        monitorVo.setCreationBreakerState(BREAKER_STATE_NAMES[this.breakerState.get()]);
+        monitorVo.setCreationBreakerOpenCount(this.breakerOpenCount.get());
         return this.monitorVo;
     }
 
@@ -1093,14 +1963,14 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
     //***************************************************************************************************************//
     //class-6.1:Thread factory
     private static final class PoolThreadThreadFactory implements ThreadFactory {
-        private final String poolName;
+        private final String threadName;
 
-        PoolThreadThreadFactory(String poolName) {
-            this.poolName = poolName;
+        PoolThreadThreadFactory(String threadName) {
+            this.threadName = threadName;
         }
 
         public Thread newThread(Runnable r) {
-            Thread th = new Thread(r, poolName + "-networkTimeoutRestThread");
+            Thread th = new Thread(r, threadName);
             th.setDaemon(true);
             return th;
         }
@@ -1112,6 +1982,10 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             super(permits, fair);
         }
 
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+
         void interruptWaitingThreads() {
             for (Thread thread : getQueuedThreads()) {
                 //State state = thread.getState();
@@ -1133,7 +2007,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         public void run() {
             try {
                 pool.createInitConnections(pool.poolConfig.getInitialSize(), false);
-                pool.servantState.getAndSet(pool.pooledArray.length);
+                pool.servantState.getAndSet(pool.totalSize.get());
                 if (!pool.waitQueue.isEmpty() && pool.servantState.get() == THREAD_WAITING && pool.servantState.compareAndSet(THREAD_WAITING, THREAD_WORKING))
                     LockSupport.unpark(pool);
             } catch (Throwable e) {
@@ -1142,7 +2016,136 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //class-6.4: A timed thead to scan idle connections and close them
+    //class-6.4: A task to create one initial connection in parallel warm-up
+    private static final class PoolInitCreateTask implements Callable<PooledConnection> {
+        private final FastConnectionPool pool;
+
+        PoolInitCreateTask(FastConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        public PooledConnection call() throws SQLException {
+            return pool.createPooledConn(CON_IDLE);
+        }
+    }
+
+    //class-6.5: A timer task to complete asynchronous borrower with a timeout exception
+    private static final class AsyncBorrowTimeoutTask implements Runnable {
+        private final FastConnectionPool pool;
+        private final Borrower borrower;
+
+        AsyncBorrowTimeoutTask(FastConnectionPool pool, Borrower borrower) {
+            this.pool = pool;
+            this.borrower = borrower;
+        }
+
+        public void run() {
+            pool.abortAsyncBorrow(borrower, new ConnectionGetTimeoutException("Timeout in wait queue"));
+        }
+    }
+
+    //class-6.6: A timer task to resize permits of pool semaphore in adaptive mode
+    private static final class SemaphoreAdjustTask implements Runnable {
+        private final FastConnectionPool pool;
+
+        SemaphoreAdjustTask(FastConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        public void run() {
+            try {
+                pool.adjustSemaphoreSize();
+            } catch (Throwable e) {
+                Log.warn("BeeCP({})Failed to resize permits of semaphore", pool.poolName, e);
+            }
+        }
+    }
+
+    //class-6.7: A timer task to catch idle connections for alive test in background
+    private static final class IdleAliveTestScanTask implements Runnable {
+        private final FastConnectionPool pool;
+
+        IdleAliveTestScanTask(FastConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        public void run() {
+            try {
+                pool.scanIdleToTestAlive();
+            } catch (Throwable e) {
+                Log.warn("BeeCP({})Failed to scan idle connections for alive test", pool.poolName, e);
+            }
+        }
+    }
+
+    //class-6.8: A task to test alive on a caught idle connection
+    private static final class IdleAliveTestTask implements Runnable {
+        private final FastConnectionPool pool;
+        private final PooledConnection p;
+
+        private final boolean keepalive;
+
+        IdleAliveTestTask(FastConnectionPool pool, PooledConnection p, boolean keepalive) {
+            this.pool = pool;
+            this.p = p;
+            this.keepalive = keepalive;
+        }
+
+        public void run() {
+            pool.testIdleAlive(p, keepalive);
+        }
+    }
+
+    //class-6.9: A task to replace a lifetime expired connection or a connection of older generation
+    private static final class ConnectionRetireTask implements Runnable {
+        private final FastConnectionPool pool;
+        private final PooledConnection p;
+
+        ConnectionRetireTask(FastConnectionPool pool, PooledConnection p) {
+            this.pool = pool;
+            this.p = p;
+        }
+
+        public void run() {
+            pool.retirePooledConn(p);
+        }
+    }
+
+    //class-6.10: A task to probe creation while circuit breaker is open
+    private static final class CreationBreakerProbeTask implements Runnable {
+        private final FastConnectionPool pool;
+        private final int attempts;
+
+        CreationBreakerProbeTask(FastConnectionPool pool, int attempts) {
+            this.pool = pool;
+            this.attempts = attempts;
+        }
+
+        public void run() {
+            pool.probeCreation(attempts);
+        }
+    }
+
+    //class-6.11: A task to reset a returned connection or to close a removed connection off caller thread
+    private static final class PooledConnectionResetTask implements Runnable {
+        private final PooledConnection p;
+        private final boolean close;
+
+        PooledConnectionResetTask(PooledConnection p, boolean close) {
+            this.p = p;
+            this.close = close;
+        }
+
+        public void run() {
+            if (close) {
+                p.onBeforeRemove();
+            } else {
+                p.resetAndRecycle();
+            }
+        }
+    }
+
+    //class-6.12: A timed thead to scan idle connections and close them
     private static final class IdleTimeoutScanThread extends Thread {
         private final FastConnectionPool pool;
 
@@ -1165,7 +2168,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //class-6.5:JVM exit hook
+    //class-6.13:JVM exit hook
     private static class ConnectionPoolHook extends Thread {
         private final FastConnectionPool pool;
 
@@ -1183,7 +2186,7 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //class-6.6:Fair transfer
+    //class-6.14:Fair transfer
     private static final class FairTransferPolicy implements PooledConnectionTransferPolicy {
         public int getStateCodeOnRelease() {
             return CON_USING;
@@ -1194,14 +2197,20 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
         }
     }
 
-    //class-6.7: threadLocal caches the last used connections of borrowers(only cache one per borrower)
+    //class-6.15: threadLocal caches some used connections of borrowers(size of cache per borrower is configurable)
     private static final class BorrowerThreadLocal extends ThreadLocal<WeakReference<Borrower>> {
+        private final FastConnectionPool pool;
+
+        BorrowerThreadLocal(FastConnectionPool pool) {
+            this.pool = pool;
+        }
+
         protected WeakReference<Borrower> initialValue() {
-            return new WeakReference<Borrower>(new Borrower());
+            return new WeakReference<Borrower>(pool.createBorrower());
         }
     }
 
-    //class-6.8: alive test on borrowed connections by executing a SQL
+    //class-6.16: alive test on borrowed connections by executing a SQL
     private static final class PooledConnectionAliveTestBySql implements PooledConnectionAliveTest {
         private final String testSql;
         private final String poolName;
@@ -1248,7 +2257,6 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
                 //step3: execute test sql
                 try {
                     st.execute(this.testSql);
-                    p.lastAccessTime = System.currentTimeMillis();
                 } finally {
                     rawConn.rollback();//must rollback avoid dirty data into db.if rollback failed,the connection need be abandon
                 }
@@ -1271,4 +2279,81 @@ public final class FastConnectionPool extends Thread implements BeeConnectionPoo
             return checkPassed;
         }
     }
+
+    //class-6.17: alive test by executing a read only SQL on a statement cached in connection,auto-commit not switched
+    private static final class PooledConnectionAliveTestByCachedSql implements PooledConnectionAliveTest {
+        private final String testSql;
+        private final String poolName;
+        private final boolean printRuntimeLog;
+        private final int validTestTimeout;
+        private final boolean supportQueryTimeout;
+
+        private PooledConnectionAliveTestByCachedSql(String poolName, String testSql, int validTestTimeout,
+                                                     boolean supportQueryTimeout, boolean printRuntimeLog) {
+            this.poolName = poolName;
+            this.testSql = testSql;
+            this.printRuntimeLog = printRuntimeLog;
+            this.validTestTimeout = validTestTimeout;
+            this.supportQueryTimeout = supportQueryTimeout;
+        }
+
+        public final boolean isAlive(PooledConnection p) {
+            Connection rawConn = p.rawConn;
+            try {
+                Statement st = p.aliveTestStatement;
+                if (st == null) {
+                    st = rawConn.createStatement();
+                    if (this.supportQueryTimeout) {
+                        try {
+                            st.setQueryTimeout(validTestTimeout);
+                        } catch (Throwable e) {
+                            if (printRuntimeLog)
+                                Log.warn("BeeCP({})Called failed on method 'setQueryTimeout' in sql tester", poolName, e);
+                        }
+                    }
+                    p.aliveTestStatement = st;
+                }
+
+                oclose(st.executeQuery(this.testSql));
+                if (!p.curAutoCommit) rawConn.rollback();//end transaction began by test sql
+                return true;
+            } catch (Throwable e) {
+                if (printRuntimeLog)
+                    Log.warn("BeeCP({})SQL tested failed on cached statement", poolName, e);
+                return false;
+            }
+        }
+    }
+
+    //class-6.18: alive test by an implementation from configuration
+    private static final class PooledConnectionAliveTestByCustom implements PooledConnectionAliveTest {
+        private final String poolName;
+        private final BeeConnectionAliveTest aliveTest;
+        private final int validTestTimeout;
+        private final boolean printRuntimeLog;
+
+        private PooledConnectionAliveTestByCustom(String poolName, BeeConnectionAliveTest aliveTest, int validTestTimeout, boolean printRuntimeLog) {
+            this.poolName = poolName;
+            this.aliveTest = aliveTest;
+            this.validTestTimeout = validTestTimeout;
+            this.printRuntimeLog = printRuntimeLog;
+        }
+
+        public final boolean isAlive(PooledConnection p) {
+            try {
+                return this.aliveTest.isAlive(p.rawConn, this.validTestTimeout);
+            } catch (Throwable e) {
+                if (printRuntimeLog)
+                    Log.warn("BeeCP({})Failed to test connection with alive test:{}", poolName, aliveTest, e);
+                return false;
+            }
+        }
+    }
+
+    //class-6.19: no alive test,connections are assumed in alive
+    private static final class PooledConnectionAliveTestNone implements PooledConnectionAliveTest {
+        public final boolean isAlive(PooledConnection p) {
+            return true;
+        }
+    }
 }
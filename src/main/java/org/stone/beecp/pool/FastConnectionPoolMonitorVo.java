@@ -33,6 +33,22 @@ public class FastConnectionPoolMonitorVo implements BeeConnectionPoolMonitorVo {
     private int usingSize;
     private int semaphoreWaitingSize;
     private int transferWaitingSize;
+    private long threadLocalHitCount;
+    private long threadLocalMissCount;
+    private int borrowSemaphoreSize;
+    private long semaphoreIncreasedCount;
+    private long semaphoreDecreasedCount;
+    private long statementCacheHitCount;
+    private long statementCacheMissCount;
+    private long statementCacheEvictionCount;
+    private String aliveTestPolicy;
+    private long aliveTestCount;
+    private long aliveTestFailedCount;
+    private long aliveTestNanos;
+    private long keepaliveCount;
+    private long keepaliveFailedCount;
+    private String creationBreakerState;
+    private long creationBreakerOpenCount;
 
     public String getDsId() {
         return dsId;
@@ -137,4 +153,132 @@ public class FastConnectionPoolMonitorVo implements BeeConnectionPoolMonitorVo {
     void setTransferWaitingSize(int transferWaitingSize) {
         this.transferWaitingSize = transferWaitingSize;
     }
+
+    public long getThreadLocalHitCount() {
+        return threadLocalHitCount;
+    }
+
+    void setThreadLocalHitCount(long threadLocalHitCount) {
+        this.threadLocalHitCount = threadLocalHitCount;
+    }
+
+    public long getThreadLocalMissCount() {
+        return threadLocalMissCount;
+    }
+
+    void setThreadLocalMissCount(long threadLocalMissCount) {
+        this.threadLocalMissCount = threadLocalMissCount;
+    }
+
+    public int getBorrowSemaphoreSize() {
+        return borrowSemaphoreSize;
+    }
+
+    void setBorrowSemaphoreSize(int borrowSemaphoreSize) {
+        this.borrowSemaphoreSize = borrowSemaphoreSize;
+    }
+
+    public long getSemaphoreIncreasedCount() {
+        return semaphoreIncreasedCount;
+    }
+
+    void setSemaphoreIncreasedCount(long semaphoreIncreasedCount) {
+        this.semaphoreIncreasedCount = semaphoreIncreasedCount;
+    }
+
+    public long getSemaphoreDecreasedCount() {
+        return semaphoreDecreasedCount;
+    }
+
+    void setSemaphoreDecreasedCount(long semaphoreDecreasedCount) {
+        this.semaphoreDecreasedCount = semaphoreDecreasedCount;
+    }
+
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount;
+    }
+
+    void setStatementCacheHitCount(long statementCacheHitCount) {
+        this.statementCacheHitCount = statementCacheHitCount;
+    }
+
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount;
+    }
+
+    void setStatementCacheMissCount(long statementCacheMissCount) {
+        this.statementCacheMissCount = statementCacheMissCount;
+    }
+
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount;
+    }
+
+    void setStatementCacheEvictionCount(long statementCacheEvictionCount) {
+        this.statementCacheEvictionCount = statementCacheEvictionCount;
+    }
+
+    public String getAliveTestPolicy() {
+        return aliveTestPolicy;
+    }
+
+    void setAliveTestPolicy(String aliveTestPolicy) {
+        this.aliveTestPolicy = aliveTestPolicy;
+    }
+
+    public long getAliveTestCount() {
+        return aliveTestCount;
+    }
+
+    void setAliveTestCount(long aliveTestCount) {
+        this.aliveTestCount = aliveTestCount;
+    }
+
+    public long getAliveTestFailedCount() {
+        return aliveTestFailedCount;
+    }
+
+    void setAliveTestFailedCount(long aliveTestFailedCount) {
+        this.aliveTestFailedCount = aliveTestFailedCount;
+    }
+
+    public long getAliveTestNanos() {
+        return aliveTestNanos;
+    }
+
+    void setAliveTestNanos(long aliveTestNanos) {
+        this.aliveTestNanos = aliveTestNanos;
+    }
+
+    public long getKeepaliveCount() {
+        return keepaliveCount;
+    }
+
+    void setKeepaliveCount(long keepaliveCount) {
+        this.keepaliveCount = keepaliveCount;
+    }
+
+    public long getKeepaliveFailedCount() {
+        return keepaliveFailedCount;
+    }
+
+    void setKeepaliveFailedCount(long keepaliveFailedCount) {
+        this.keepaliveFailedCount = keepaliveFailedCount;
+    }
+
+    public String getCreationBreakerState() {
+        return creationBreakerState;
+    }
+
+    void setCreationBreakerState(String creationBreakerState) {
+        this.creationBreakerState = creationBreakerState;
+    }
+
+    public long getCreationBreakerOpenCount() {
+        return creationBreakerOpenCount;
+    }
+
+    void setCreationBreakerOpenCount(long creationBreakerOpenCount) {
+        this.creationBreakerOpenCount = creationBreakerOpenCount;
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coarse clock of a pool,its time is refreshed by a timer task at a configured resolution,
+ * then access time updates on executions and timeout checks read a volatile field instead of system clock.
+ * When the clock is not ticking,system clock is read directly.
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+final class PoolClock implements Runnable {
+    private final AtomicLong now = new AtomicLong(0L);//zero means clock not ticking
+
+    long currentTimeMillis() {
+        long time = this.now.get();
+        return time != 0L ? time : System.currentTimeMillis();
+    }
+
+    void start() {
+        this.now.set(System.currentTimeMillis());
+    }
+
+    void stop() {
+        this.now.set(0L);
+    }
+
+    //timer task to refresh time,a tick after stop is ignored
+    public void run() {
+        long time = this.now.get();
+        if (time != 0L) this.now.compareAndSet(time, System.currentTimeMillis());
+    }
+}
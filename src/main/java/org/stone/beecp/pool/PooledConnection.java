@@ -14,9 +14,13 @@ import org.stone.beecp.pool.exception.ConnectionRecycleException;
 
 import javax.transaction.xa.XAResource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.stone.beecp.pool.ConnectionPoolStatics.*;
 import static org.stone.tools.CommonUtil.isBlank;
@@ -27,7 +31,7 @@ import static org.stone.tools.CommonUtil.isBlank;
  * @author Chris Liao
  * @version 1.0
  */
-final class PooledConnection implements Cloneable {
+final class PooledConnection extends CacheLinePadding.ConnectionStatePadding implements Cloneable {
     private static final boolean[] FALSE = new boolean[6];
     final boolean defaultAutoCommit;
     final int defaultTransactionIsolation;
@@ -50,18 +54,34 @@ final class PooledConnection implements Cloneable {
     private final List<Integer> sqlExceptionCodeList;
     private final List<String> sqlExceptionStateList;
     private final SQLExceptionPredication predication;
+    final ProxyObjectFactory proxyFactory;//null when prebuilt proxy classes are used
+    final PoolClock clock;//clock of pool to update access time
+    private final long maxLifetime;//milliseconds,zero means not retired by lifetime
 
     long creationTime;//milliseconds
+    long retireTime;//milliseconds,creation time plus max lifetime minus a random jitter
+    int generation;//generation of pool at creation,retired when pool generation increased
     Connection rawConn;//maybe from XAConnection
     XAResource rawXaRes;//from XAConnection
-    volatile int state;
+    int slotIndex;//index of slot in pooled array of pool
+    volatile boolean retireQueued;//a task is queued to replace it,then not queued again at next idle scan
     volatile long lastAccessTime;//milliseconds
+    long lastAliveTime;//milliseconds,time of passed alive test in background(visible to borrowers after cas on state)
     int openStmSize;
     boolean curAutoCommit;
+    int curTransactionIsolation;
+    boolean curReadOnly;
+    String curCatalog;
+    String curSchema;
     boolean commitDirtyInd;
     ProxyConnectionBase proxyInUsing;//default is null
+    ReentrantLock proxyLock;//lock on close and statement registration of proxy(not a monitor,avoid pinning virtual thread)
+    PreparedStatementCache stmCache;//null when statement cache not enabled
+    Statement aliveTestStatement;//statement cached for alive test(policy CACHED_SQL)
 
     private int resetCnt;//reset count
+    private final int stateCacheMask;//bits of session properties allowed to cache,zero when cache not enabled
+    private int cachedStateBits;//bits of session properties whose current values are same to driver(bit position is reset pos)
     private boolean[] resetFlags;
     private ProxyStatementBase[] openStatements;
 
@@ -92,7 +112,11 @@ final class PooledConnection implements Cloneable {
             //7:others
             List<Integer> sqlExceptionCodeList,
             List<String> sqlExceptionStateList,
-            SQLExceptionPredication predication) {
+            SQLExceptionPredication predication,
+            ProxyObjectFactory proxyFactory,
+            PoolClock clock,
+            long maxLifetime,
+            boolean enableSessionStateCache) {
 
         //1:defaultAutoCommit
         this.enableDefaultOnAutoCommit = enableDefaultOnAutoCommit;
@@ -121,9 +145,39 @@ final class PooledConnection implements Cloneable {
         this.sqlExceptionCodeList = sqlExceptionCodeList;
         this.sqlExceptionStateList = sqlExceptionStateList;
         this.predication = predication;
+        this.proxyFactory = proxyFactory;
+        this.clock = clock;
+        this.maxLifetime = maxLifetime;
 
         this.pool = pool;
         this.curAutoCommit = defaultAutoCommit;
+        this.curTransactionIsolation = defaultTransactionIsolation;
+        this.curReadOnly = defaultReadOnly;
+        this.curCatalog = defaultCatalog;
+        this.curSchema = defaultSchema;
+
+        //values of catalog and schema are not cached when they are forced dirty after set
+        int mask = 0;
+        if (enableSessionStateCache) {
+            mask = 1 << PS_AUTO | 1 << PS_TRANS | 1 << PS_READONLY;
+            if (!forceDirtyOnCatalogAfterSet) mask |= 1 << PS_CATALOG;
+            if (!forceDirtyOnSchemaAfterSet) mask |= 1 << PS_SCHEMA;
+        }
+        this.stateCacheMask = mask;
+        //default values are set on new connections,so they are same to driver(copied to cloned connections)
+        int bits = 0;
+        if (enableDefaultOnAutoCommit) bits |= 1 << PS_AUTO;
+        if (enableDefaultOnTransactionIsolation) bits |= 1 << PS_TRANS;
+        if (enableDefaultOnReadOnly) bits |= 1 << PS_READONLY;
+        if (enableDefaultOnCatalog && this.defaultCatalogIsNotBlank) bits |= 1 << PS_CATALOG;
+        if (enableDefaultOnSchema && this.defaultSchemaIsNotBlank) bits |= 1 << PS_SCHEMA;
+        this.cachedStateBits = bits & mask;
+    }
+
+    //jitter up to a tenth of max lifetime to stagger retirement of connections created together
+    private long computeRetireTime(long creationTime) {
+        if (maxLifetime <= 0L) return Long.MAX_VALUE;
+        return creationTime + maxLifetime - ThreadLocalRandom.current().nextLong(maxLifetime / 10L + 1L);
     }
 
     PooledConnection createFirstByClone(Connection rawConn, int state, XAResource rawXaRes) throws CloneNotSupportedException {
@@ -133,8 +187,11 @@ final class PooledConnection implements Cloneable {
         p.rawXaRes = rawXaRes;
         p.resetFlags = FALSE.clone();
         p.openStatements = new ProxyStatementBase[10];
-        p.creationTime = System.currentTimeMillis();
+        p.proxyLock = new ReentrantLock();
+        p.stmCache = pool.createStatementCache();
+        p.creationTime = clock.currentTimeMillis();
         p.lastAccessTime = p.creationTime;
+        p.retireTime = computeRetireTime(p.creationTime);
         return p;
     }
 
@@ -156,8 +213,11 @@ final class PooledConnection implements Cloneable {
         p.rawXaRes = rawXaRes;
         p.resetFlags = FALSE.clone();
         p.openStatements = new ProxyStatementBase[10];
-        p.creationTime = System.currentTimeMillis();
+        p.proxyLock = new ReentrantLock();
+        p.stmCache = pool.createStatementCache();
+        p.creationTime = clock.currentTimeMillis();
         p.lastAccessTime = p.creationTime;
+        p.retireTime = computeRetireTime(p.creationTime);
         return p;
     }
 
@@ -165,6 +225,11 @@ final class PooledConnection implements Cloneable {
     //                                      1:connection recycle(call by proxy connection)                           //                                                                                  //
     //***************************************************************************************************************//
 
+    //create a new proxy for borrower from driver specialized classes or prebuilt classes
+    final ProxyConnectionBase newProxyConnection() throws SQLException {
+        return this.proxyFactory != null ? this.proxyFactory.createProxyConnection(this) : createProxyConnection(this);
+    }
+
     /**
      * remove connection from pool,method called by {@link ProxyConnectionBase#abort}
      */
@@ -180,6 +245,7 @@ final class PooledConnection implements Cloneable {
     final void recycleSelf() throws SQLException {
         try {
             this.proxyInUsing = null;
+            if ((this.commitDirtyInd || this.resetCnt > 0) && this.pool.tryRecycleAsync(this)) return;//reset dirty in background
             this.resetRawConn();
             this.pool.recycle(this);
         } catch (Throwable e) {
@@ -188,6 +254,18 @@ final class PooledConnection implements Cloneable {
         }
     }
 
+    //reset dirty properties on reset executor of pool,then return to pool
+    final void resetAndRecycle() {
+        try {
+            this.resetRawConn();
+            this.state = CON_USING;//resetting done,recycled as a using one
+            this.pool.recycle(this);
+        } catch (Throwable e) {
+            if (pool.isPrintRuntimeLog()) CommonLog.warn("BeeCP({})Resetting returned connection failed", pool.getPoolName(), e);
+            this.pool.abandonOnReturn(this, DESC_RM_BAD);
+        }
+    }
+
     //***************************************************************************************************************//
     //                                    2:call back method                                                         //                                                                                  //
     //***************************************************************************************************************//
@@ -202,6 +280,8 @@ final class PooledConnection implements Cloneable {
         } catch (Throwable e) {
             if (pool.isPrintRuntimeLog()) CommonLog.warn("BeeCP({})Resetting connection failed", pool.getPoolName(), e);
         } finally {
+            if (this.stmCache != null) this.clearCachedStatements();
+            if (this.aliveTestStatement != null) oclose(this.aliveTestStatement);
             oclose(this.rawConn);
             this.rawXaRes = null;
         }
@@ -216,17 +296,58 @@ final class PooledConnection implements Cloneable {
             System.arraycopy(this.openStatements, 0, array, 0, this.openStmSize);
             this.openStatements = array;
         }
+        s.openIndex = this.openStmSize;
         this.openStatements[this.openStmSize++] = s;
     }
 
+    //remove in constant time:the last statement is swapped into slot of removed one
     final void unregisterStatement(ProxyStatementBase s) {
-        for (int i = this.openStmSize - 1; i >= 0; i--) {
-            if (s == this.openStatements[i]) {
-                int m = this.openStmSize - i - 1;
-                if (m > 0) System.arraycopy(this.openStatements, i + 1, this.openStatements, i, m);//move ahead
-                this.openStatements[--this.openStmSize] = null; // clear to let GC do its work
-                return;
-            }
+        int i = s.openIndex;
+        if (i < 0 || i >= this.openStmSize || this.openStatements[i] != s) return;
+
+        int lastIndex = --this.openStmSize;
+        ProxyStatementBase last = this.openStatements[lastIndex];
+        this.openStatements[i] = last;
+        last.openIndex = i;
+        this.openStatements[lastIndex] = null; // clear to let GC do its work
+        s.openIndex = -1;
+    }
+
+    final PreparedStatement takeCachedStatement(PreparedStatementCache.Key key) {
+        this.proxyLock.lock();
+        try {
+            return this.stmCache.take(key);
+        } finally {
+            this.proxyLock.unlock();
+        }
+    }
+
+    //put back a raw statement to cache after its proxy closed,return false if failed
+    final boolean putCachedStatement(PreparedStatementCache.Key key, PreparedStatement ps) {
+        try {//clear state left by previous user
+            ps.clearParameters();
+            ps.clearBatch();
+            ps.clearWarnings();
+        } catch (Throwable e) {
+            return false;
+        }
+
+        this.proxyLock.lock();
+        try {
+            if (this.state == CON_CLOSED) return false;//connection has been removed
+            this.stmCache.putBack(key, ps);
+            return true;
+        } finally {
+            this.proxyLock.unlock();
+        }
+    }
+
+    private void clearCachedStatements() {
+        this.proxyLock.lock();
+        try {
+            this.stmCache.closeAll();
+        } finally {
+            this.proxyLock.unlock();
         }
     }
 
@@ -234,7 +355,7 @@ final class PooledConnection implements Cloneable {
         for (int i = 0; i < this.openStmSize; i++) {
             ProxyStatementBase s = this.openStatements[i];
             if (s != null) {
-                s.registered = false;
+                s.openIndex = -1;
                 this.openStatements[i] = null;
                 oclose(s);
             }
@@ -247,13 +368,25 @@ final class PooledConnection implements Cloneable {
     //***************************************************************************************************************//
     final void updateAccessTime() {//for update,insert.select,delete and so on DML
         this.commitDirtyInd = !this.curAutoCommit;
-        this.lastAccessTime = System.currentTimeMillis();
+        this.touchAccessTime();
+    }
+
+    //write access time only when coarse clock moved,then executions within a tick not write the volatile field
+    final void touchAccessTime() {
+        long time = this.clock.currentTimeMillis();
+        if (time != this.lastAccessTime) this.lastAccessTime = time;
     }
 
     void checkSQLException(SQLException e) {//Fatal error code check
         ProxyConnectionBase proxyInUsing = this.proxyInUsing;
         if (proxyInUsing == null) return;
 
+        if (pool.tryEvictOnServerFatalError(this, e)) {
+            if (pool.isPrintRuntimeLog())
+                CommonLog.warn("BeeCP({})Connection has been broken because of a server-wide fatal error", pool.getPoolName());
+            proxyInUsing.abort(null);//remove connection from pool and add re-try count for other borrowers
+            return;
+        }
         if (predication != null) {
             String msg = predication.check(e);
             if (!isBlank(msg)) {
@@ -286,6 +419,14 @@ final class PooledConnection implements Cloneable {
         return this.supportNetworkTimeoutInd;
     }
 
+    final boolean isStateCached(int i) {
+        return (this.cachedStateBits & (1 << i)) != 0;
+    }
+
+    final void setStateCached(int i) {
+        this.cachedStateBits |= (1 << i) & this.stateCacheMask;
+    }
+
     final void setResetInd(int i, boolean changed) {
         if (this.resetFlags[i] != changed) {
             this.resetFlags[i] = changed;
@@ -303,17 +444,30 @@ final class PooledConnection implements Cloneable {
             if (this.resetFlags[PS_AUTO]) {//reset autoCommit
                 this.rawConn.setAutoCommit(this.defaultAutoCommit);
                 this.curAutoCommit = this.defaultAutoCommit;
+                this.setStateCached(PS_AUTO);
             }
-            if (this.resetFlags[PS_TRANS])
+            if (this.resetFlags[PS_TRANS]) {
                 this.rawConn.setTransactionIsolation(this.defaultTransactionIsolation);
-            if (this.resetFlags[PS_READONLY]) //reset readonly
+                this.curTransactionIsolation = this.defaultTransactionIsolation;
+                this.setStateCached(PS_TRANS);
+            }
+            if (this.resetFlags[PS_READONLY]) {//reset readonly
                 this.rawConn.setReadOnly(this.defaultReadOnly);
-            if (this.defaultCatalogIsNotBlank && this.resetFlags[PS_CATALOG]) //reset catalog
+                this.curReadOnly = this.defaultReadOnly;
+                this.setStateCached(PS_READONLY);
+            }
+            if (this.defaultCatalogIsNotBlank && this.resetFlags[PS_CATALOG]) {//reset catalog
                 this.rawConn.setCatalog(this.defaultCatalog);
+                this.curCatalog = this.defaultCatalog;
+                this.setStateCached(PS_CATALOG);
+            }
 
             //for JDK1.7 begin
-            if (this.defaultSchemaIsNotBlank && this.resetFlags[PS_SCHEMA]) //reset schema
+            if (this.defaultSchemaIsNotBlank && this.resetFlags[PS_SCHEMA]) {//reset schema
                 this.rawConn.setSchema(this.defaultSchema);
+                this.curSchema = this.defaultSchema;
+                this.setStateCached(PS_SCHEMA);
+            }
             if (this.resetFlags[PS_NETWORK]) //reset networkTimeout
                 this.rawConn.setNetworkTimeout(this.networkTimeoutExecutor, this.defaultNetworkTimeout);
             //for JDK1.7 end
@@ -0,0 +1,106 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import org.stone.tools.WTinyLfuCache;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.stone.beecp.pool.ConnectionPoolStatics.oclose;
+
+/**
+ * W-TinyLFU cache on raw prepared statements of a pooled connection,a statement is taken out from cache during using
+ * and put back after its proxy closed
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+final class PreparedStatementCache implements WTinyLfuCache.RemovalListener<PreparedStatementCache.Key, PreparedStatement> {
+    private final WTinyLfuCache<Key, PreparedStatement> cache;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+
+    PreparedStatementCache(int maxSize, AtomicLong hitCount, AtomicLong missCount, AtomicLong evictionCount) {
+        this.cache = new WTinyLfuCache<Key, PreparedStatement>(maxSize, 1, this);//only accessed by owner thread of connection
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    PreparedStatement take(Key key) {
+        PreparedStatement ps = this.cache.remove(key);
+        if (ps != null) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return ps;
+    }
+
+    void putBack(Key key, PreparedStatement ps) {
+        PreparedStatement old = this.cache.put(key, ps);
+        if (old != null && old != ps) {//a same statement was put back by other proxy statement
+            oclose(old);
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+    void closeAll() {
+        for (PreparedStatement ps : this.cache.values())
+            oclose(ps);
+        this.cache.clear();
+    }
+
+    public void onRemoval(Key key, PreparedStatement ps) {//evicted by cache policy
+        oclose(ps);
+        this.evictionCount.incrementAndGet();
+    }
+
+    //cache key on sql with result set type,concurrency and holdability(zero means not specified in preparation)
+    static final class Key {
+        private final boolean callable;
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+        private final int hashCode;
+
+        Key(boolean callable, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+            this.callable = callable;
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+
+            int h = sql.hashCode();
+            h = 31 * h + resultSetType;
+            h = 31 * h + resultSetConcurrency;
+            h = 31 * h + resultSetHoldability;
+            this.hashCode = callable ? ~h : h;
+        }
+
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return this.callable == other.callable
+                    && this.resultSetType == other.resultSetType
+                    && this.resultSetConcurrency == other.resultSetConcurrency
+                    && this.resultSetHoldability == other.resultSetHoldability
+                    && this.sql.equals(other.sql);
+        }
+    }
+}
@@ -12,14 +12,20 @@ package org.stone.beecp.pool;
 import javassist.*;
 
 import java.sql.*;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
+import static org.stone.beecp.pool.ConnectionPoolStatics.oclose;
 import static org.stone.tools.CommonUtil.isBlank;
 
 /**
  * An independent execution toolkit class to generate JDBC statement classes with javassist,
  * then write to class folder.
+ * <p>
+ * It also generates proxy classes specialized to driver classes at pool startup(javassist must be present at runtime)
  *
  * @author Chris Liao
  * @version 1.0
@@ -27,6 +33,9 @@ import static org.stone.tools.CommonUtil.isBlank;
 @SuppressWarnings("unchecked")
 final class ProxyClassGenerator {
     private static final String DefaultFolder = "stone/target/classes";
+    private static final ReentrantLock DriverProxyLock = new ReentrantLock();
+    private static final Map<String, ProxyObjectFactory> DriverProxyFactoryMap = new HashMap<String, ProxyObjectFactory>(2);//guarded by lock
+    private static int DriverProxySeq;//guarded by lock
 
     /**
      * @param args take the first argument as classes generated output folder,otherwise take default folder
@@ -71,6 +80,110 @@ final class ProxyClassGenerator {
         }
     }
 
+    /**
+     * generate proxy classes typed to driver classes of raw objects from a connection,generated classes are
+     * defined in class loader of pool and shared by pools on same driver classes
+     *
+     * @param rawCon  a raw connection to get driver classes
+     * @param testSql a query sql to get driver classes of prepared statement and result set
+     * @return factory to create specialized proxies,null if no driver class can be specialized
+     * @throws Exception if failed to generate classes
+     */
+    static ProxyObjectFactory createDriverProxyFactory(Connection rawCon, String testSql) throws Exception {
+        String[] rawTypes = new String[5];//connection,statement,prepared statement,callable statement,result set
+        rawTypes[0] = ProxyClassGenerator.getVisibleTypeName(rawCon.getClass());
+        Statement st = null;
+        try {
+            st = rawCon.createStatement();
+            rawTypes[1] = ProxyClassGenerator.getVisibleTypeName(st.getClass());
+        } finally {
+            if (st != null) oclose(st);
+        }
+
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = rawCon.prepareStatement(testSql);
+            rawTypes[2] = ProxyClassGenerator.getVisibleTypeName(ps.getClass());
+            rs = ps.executeQuery();
+            rawTypes[4] = ProxyClassGenerator.getVisibleTypeName(rs.getClass());
+        } catch (SQLException e) {
+            //calls on prepared statement or result set keep interface way
+        } finally {
+            if (rs != null) oclose(rs);
+            if (ps != null) oclose(ps);
+            try {
+                if (!rawCon.getAutoCommit()) rawCon.rollback();
+            } catch (SQLException e) {
+                //do nothing
+            }
+        }
+
+        boolean specialized = false;
+        StringBuilder keyBuilder = new StringBuilder(128);
+        for (String rawType : rawTypes) {
+            keyBuilder.append(rawType).append(',');
+            if (rawType != null) specialized = true;
+        }
+        if (!specialized) return null;
+
+        String key = keyBuilder.toString();
+        DriverProxyLock.lock();
+        try {
+            ProxyObjectFactory factory = DriverProxyFactoryMap.get(key);
+            if (factory == null) {
+                factory = ProxyClassGenerator.defineDriverProxyClasses("_" + (++DriverProxySeq), rawTypes);
+                DriverProxyFactoryMap.put(key, factory);
+            }
+            return factory;
+        } finally {
+            DriverProxyLock.unlock();
+        }
+    }
+
+    //return class name when it is public and visible in class loader of pool,otherwise return null
+    private static String getVisibleTypeName(Class<?> type) {
+        if (!java.lang.reflect.Modifier.isPublic(type.getModifiers())) return null;
+        try {
+            return Class.forName(type.getName(), false, ProxyClassGenerator.class.getClassLoader()) == type ? type.getName() : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static ProxyObjectFactory defineDriverProxyClasses(String suffix, String[] rawTypes) throws Exception {
+        ClassPool classPool = new ClassPool(true);
+        classPool.importPackage("java.sql");
+        classPool.importPackage("org.stone.beecp.pool");
+        classPool.appendClassPath(new LoaderClassPath(ProxyClassGenerator.class.getClassLoader()));
+        CtClass[] ctClasses = ProxyClassGenerator.createProxyClasses(classPool, suffix, rawTypes);
+
+        String createTail = "PooledConnection p)throws SQLException{return new ";
+        CtClass ctFactoryClass = classPool.makeClass("org.stone.beecp.pool.ProxyObjectFactory" + suffix);
+        ctFactoryClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+        ctFactoryClass.addInterface(classPool.get(ProxyObjectFactory.class.getName()));
+        ctFactoryClass.addConstructor(CtNewConstructor.defaultConstructor(ctFactoryClass));
+        ctFactoryClass.addMethod(CtNewMethod.make("public ProxyConnectionBase createProxyConnection(" + createTail + "ProxyConnection" + suffix + "(p);}", ctFactoryClass));
+        ctFactoryClass.addMethod(CtNewMethod.make("public ResultSet createProxyResultSet(ResultSet raw,ProxyStatementBase owner," + createTail + "ProxyResultSet" + suffix + "(raw,owner,p);}", ctFactoryClass));
+        ctFactoryClass.addMethod(CtNewMethod.make("public ProxyStatementBase createProxyPsStatement(PreparedStatement raw,ProxyConnectionBase owner," + createTail + "ProxyPsStatement" + suffix + "(raw,owner,p);}", ctFactoryClass));
+        ctFactoryClass.addMethod(CtNewMethod.make("public ProxyStatementBase createProxyCsStatement(CallableStatement raw,ProxyConnectionBase owner," + createTail + "ProxyCsStatement" + suffix + "(raw,owner,p);}", ctFactoryClass));
+
+        for (CtClass ctClass : ctClasses)//super classes are defined ahead of sub classes
+            ProxyClassGenerator.defineClass(ctClass);
+        return (ProxyObjectFactory) ProxyClassGenerator.defineClass(ctFactoryClass).newInstance();
+    }
+
+    //define class in package of pool(a lookup on neighbor class is used on Java9+,which is not available on Java8)
+    private static Class<?> defineClass(CtClass ctClass) throws Exception {
+        Class<?> neighbor = ProxyConnectionBase.class;
+        try {
+            Class.class.getMethod("getModule");
+            return ctClass.toClass(neighbor);
+        } catch (NoSuchMethodException e) {
+            return ctClass.toClass(neighbor.getClassLoader(), neighbor.getProtectionDomain());
+        }
+    }
+
     /**
      * create all wrapper classes based on JDBC some interfaces
      *
@@ -89,11 +202,43 @@ final class ProxyClassGenerator {
         classPool.importPackage("java.sql");
         classPool.importPackage("org.stone.beecp.pool");
         classPool.appendClassPath(new LoaderClassPath(ProxyClassGenerator.class.getClassLoader()));
+        CtClass[] proxyClasses = ProxyClassGenerator.createProxyClasses(classPool, "", new String[5]);
+
+        //............... ProxyObjectFactory Begin..................
+        CtClass ctProxyObjectFactoryClass = classPool.get(ConnectionPoolStatics.class.getName());
+        for (CtMethod method : ctProxyObjectFactoryClass.getDeclaredMethods()) {
+            if ("createProxyConnection".equals(method.getName())) {
+                method.setBody("{return new ProxyConnection($$);}");
+            } else if ("createProxyResultSet".equals(method.getName())) {
+                method.setBody("{return new ProxyResultSet($$);}");
+            } else if ("createProxyPsStatement".equals(method.getName())) {
+                method.setBody("{return new ProxyPsStatement($$);}");
+            } else if ("createProxyCsStatement".equals(method.getName())) {
+                method.setBody("{return new ProxyCsStatement($$);}");
+            }
+        }
+        //............... ProxyObjectFactory end..................
+        CtClass[] ctClasses = new CtClass[proxyClasses.length + 1];
+        System.arraycopy(proxyClasses, 0, ctClasses, 0, proxyClasses.length);
+        ctClasses[proxyClasses.length] = ctProxyObjectFactoryClass;
+        return ctClasses;
+    }
 
+    /**
+     * create proxy classes on JDBC interfaces,class names are appended with suffix
+     *
+     * @param classPool javassist class pool
+     * @param suffix    suffix of generated class names,empty for prebuilt classes
+     * @param rawTypes  driver class names of raw connection,statement,prepared statement,callable statement and result set,
+     *                  calls on raw objects are typed to them when not null
+     * @return classes in order:connection,statement,prepared statement,callable statement,database metadata,result set
+     * @throws Exception if failed to generate class
+     */
+    private static CtClass[] createProxyClasses(ClassPool classPool, String suffix, String[] rawTypes) throws Exception {
         //............Connection Begin.........
         CtClass ctConnectionClass = classPool.get(Connection.class.getName());
         CtClass ctProxyConnectionBaseClass = classPool.get(ProxyConnectionBase.class.getName());
-        CtClass ctProxyConnectionClass = classPool.makeClass("org.stone.beecp.pool.ProxyConnection", ctProxyConnectionBaseClass);
+        CtClass ctProxyConnectionClass = classPool.makeClass("org.stone.beecp.pool.ProxyConnection" + suffix, ctProxyConnectionBaseClass);
         ctProxyConnectionClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
         CtConstructor ctConstructor = new CtConstructor(new CtClass[]{classPool.get("org.stone.beecp.pool.PooledConnection")}, ctProxyConnectionClass);
         ctConstructor.setBody("{super($$);}");
@@ -103,7 +248,7 @@ final class ProxyClassGenerator {
         //.............statement Begin.............
         CtClass ctStatementClass = classPool.get(Statement.class.getName());
         CtClass ctProxyStatementBaseClass = classPool.get(ProxyStatementBase.class.getName());
-        CtClass ctProxyStatementClass = classPool.makeClass("org.stone.beecp.pool.ProxyStatement", ctProxyStatementBaseClass);
+        CtClass ctProxyStatementClass = classPool.makeClass("org.stone.beecp.pool.ProxyStatement" + suffix, ctProxyStatementBaseClass);
         ctProxyStatementClass.setModifiers(Modifier.PUBLIC);
         CtClass[] statementCreateParamTypes = {
                 classPool.get("java.sql.Statement"),
@@ -117,7 +262,7 @@ final class ProxyClassGenerator {
 
         //............PreparedStatement Begin...............
         CtClass ctPreparedStatementClass = classPool.get(PreparedStatement.class.getName());
-        CtClass ctProxyPsStatementClass = classPool.makeClass("org.stone.beecp.pool.ProxyPsStatement", ctProxyStatementClass);
+        CtClass ctProxyPsStatementClass = classPool.makeClass("org.stone.beecp.pool.ProxyPsStatement" + suffix, ctProxyStatementClass);
         ctProxyPsStatementClass.setInterfaces(new CtClass[]{ctPreparedStatementClass});
         ctProxyPsStatementClass.setModifiers(Modifier.PUBLIC);
         CtClass[] statementPsCreateParamTypes = {
@@ -131,7 +276,7 @@ final class ProxyClassGenerator {
 
         //..............CallableStatement Begin.............
         CtClass ctCallableStatementClass = classPool.get(CallableStatement.class.getName());
-        CtClass ctProxyCsStatementClass = classPool.makeClass("org.stone.beecp.pool.ProxyCsStatement", ctProxyPsStatementClass);
+        CtClass ctProxyCsStatementClass = classPool.makeClass("org.stone.beecp.pool.ProxyCsStatement" + suffix, ctProxyPsStatementClass);
         ctProxyCsStatementClass.setInterfaces(new CtClass[]{ctCallableStatementClass});
         ctProxyCsStatementClass.setModifiers(Modifier.PUBLIC);
         CtClass[] statementCsCreateParamTypes = {
@@ -146,7 +291,7 @@ final class ProxyClassGenerator {
         //..............DatabaseMetaData Begin.............
         CtClass ctDatabaseMetaDataClass = classPool.get(DatabaseMetaData.class.getName());
         CtClass ctProxyDatabaseMetaDataBaseClass = classPool.get(ProxyDatabaseMetaDataBase.class.getName());
-        CtClass ctProxyDatabaseMetaDataClass = classPool.makeClass("org.stone.beecp.pool.ProxyDatabaseMetaData", ctProxyDatabaseMetaDataBaseClass);
+        CtClass ctProxyDatabaseMetaDataClass = classPool.makeClass("org.stone.beecp.pool.ProxyDatabaseMetaData" + suffix, ctProxyDatabaseMetaDataBaseClass);
         ctProxyDatabaseMetaDataClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
         CtClass[] databaseMetaDataTypes = {
                 classPool.get("java.sql.DatabaseMetaData"),
@@ -159,7 +304,7 @@ final class ProxyClassGenerator {
         //............... Result Begin..................
         CtClass ctResultSetClass = classPool.get(ResultSet.class.getName());
         CtClass ctProxyResultSetBaseClass = classPool.get(ProxyResultSetBase.class.getName());
-        CtClass ctProxyResultSetClass = classPool.makeClass("org.stone.beecp.pool.ProxyResultSet", ctProxyResultSetBaseClass);
+        CtClass ctProxyResultSetClass = classPool.makeClass("org.stone.beecp.pool.ProxyResultSet" + suffix, ctProxyResultSetBaseClass);
         ctProxyResultSetClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
         CtClass[] resultSetCreateParamTypes1 = {
                 classPool.get("java.sql.ResultSet"),
@@ -176,31 +321,20 @@ final class ProxyClassGenerator {
         ctConstructor.setBody("{super($$);}");
         ctProxyResultSetClass.addConstructor(ctConstructor);
         //............Result End...............
-        ProxyClassGenerator.createProxyConnectionClass(classPool, ctProxyConnectionClass, ctConnectionClass, ctProxyConnectionBaseClass);
-        ProxyClassGenerator.createProxyStatementClass(classPool, ctProxyStatementClass, ctStatementClass, ctProxyStatementBaseClass);
-        ProxyClassGenerator.createProxyStatementClass(classPool, ctProxyPsStatementClass, ctPreparedStatementClass, ctProxyStatementClass);
-        ProxyClassGenerator.createProxyStatementClass(classPool, ctProxyCsStatementClass, ctCallableStatementClass, ctProxyPsStatementClass);
-        ProxyClassGenerator.createProxyDatabaseMetaDataClass(classPool, ctProxyDatabaseMetaDataClass, ctDatabaseMetaDataClass, ctProxyDatabaseMetaDataBaseClass);
-        ProxyClassGenerator.createProxyResultSetClass(ctProxyResultSetClass, ctResultSetClass, ctProxyResultSetBaseClass);
+        ProxyClassGenerator.createProxyConnectionClass(classPool, ctProxyConnectionClass, ctConnectionClass, ctProxyConnectionBaseClass, suffix, rawTypes[0]);
+        ProxyClassGenerator.createProxyStatementClass(classPool, ctProxyStatementClass, ctStatementClass, ctProxyStatementBaseClass, suffix, rawTypes[1]);
+        ProxyClassGenerator.createProxyStatementClass(classPool, ctProxyPsStatementClass, ctPreparedStatementClass, ctProxyStatementClass, suffix, rawTypes[2]);
+        ProxyClassGenerator.createProxyStatementClass(classPool, ctProxyCsStatementClass, ctCallableStatementClass, ctProxyPsStatementClass, suffix, rawTypes[3]);
+        ProxyClassGenerator.createProxyDatabaseMetaDataClass(classPool, ctProxyDatabaseMetaDataClass, ctDatabaseMetaDataClass, ctProxyDatabaseMetaDataBaseClass, suffix);
+        ProxyClassGenerator.createProxyResultSetClass(ctProxyResultSetClass, ctResultSetClass, ctProxyResultSetBaseClass, rawTypes[4]);
 
-        //............... ProxyObjectFactory Begin..................
-        CtClass ctProxyObjectFactoryClass = classPool.get(ConnectionPoolStatics.class.getName());
-        for (CtMethod method : ctProxyObjectFactoryClass.getDeclaredMethods()) {
-            if ("createProxyConnection".equals(method.getName())) {
-                method.setBody("{return new ProxyConnection($$);}");
-            } else if ("createProxyResultSet".equals(method.getName())) {
-                method.setBody("{return new ProxyResultSet($$);}");
-            }
-        }
-        //............... ProxyObjectFactory end..................
         return new CtClass[]{
                 ctProxyConnectionClass,
                 ctProxyStatementClass,
                 ctProxyPsStatementClass,
                 ctProxyCsStatementClass,
                 ctProxyDatabaseMetaDataClass,
-                ctProxyResultSetClass,
-                ctProxyObjectFactoryClass};
+                ctProxyResultSetClass};
     }
 
 
@@ -225,9 +359,11 @@ final class ProxyClassGenerator {
      * @param ctConnectionClassProxyClass connection implemented sub class will be generated
      * @param ctConnectionClass           connection interface in javassist class pool
      * @param ctConBaseClass              super class extend by 'ctctConnectionClassProxyClass'
+     * @param suffix                      suffix of proxy class names
+     * @param rawType                     driver class name of raw connection,null means call on interface
      * @throws Exception some error occurred
      */
-    private static void createProxyConnectionClass(ClassPool classPool, CtClass ctConnectionClassProxyClass, CtClass ctConnectionClass, CtClass ctConBaseClass) throws Exception {
+    private static void createProxyConnectionClass(ClassPool classPool, CtClass ctConnectionClassProxyClass, CtClass ctConnectionClass, CtClass ctConBaseClass, String suffix, String rawType) throws Exception {
         LinkedList<CtMethod> linkedList = new LinkedList<CtMethod>();
         HashSet notNeedAddProxyMethods = findMethodsNotNeedProxy(ctConBaseClass);
         ProxyClassGenerator.resolveInterfaceMethods(ctConnectionClass, linkedList, notNeedAddProxyMethods);
@@ -249,21 +385,26 @@ final class ProxyClassGenerator {
             if (existsSQLException) methodBuffer.append("  try{");
             if (ctMethod.getReturnType() == ctStatementClass) {
                 newCtMethod.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
-                methodBuffer.append("return new ProxyStatement(raw." + methodName + "($$),this,p);");
+                methodBuffer.append(rawCall(rawType, "raw.", methodName, "Statement"));
+                methodBuffer.append("return new ProxyStatement" + suffix + "(r,this,p);");
             } else if (ctMethod.getReturnType() == ctPreparedStatementClass) {
                 newCtMethod.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
-                methodBuffer.append("return new ProxyPsStatement(raw." + methodName + "($$),this,p);");
+                methodBuffer.append(rawCall(rawType, "raw.", methodName, "PreparedStatement"));
+                methodBuffer.append("return new ProxyPsStatement" + suffix + "(r,this,p);");
             } else if (ctMethod.getReturnType() == ctCallableStatementClass) {
                 newCtMethod.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
-                methodBuffer.append("return new ProxyCsStatement(raw." + methodName + "($$),this,p);");
+                methodBuffer.append(rawCall(rawType, "raw.", methodName, "CallableStatement"));
+                methodBuffer.append("return new ProxyCsStatement" + suffix + "(r,this,p);");
             } else if (ctMethod.getReturnType() == ctDatabaseMetaDataIntf) {
-                methodBuffer.append("return new ProxyDatabaseMetaData(raw." + methodName + "($$),p);");
+                methodBuffer.append(rawCall(rawType, "raw.", methodName, "DatabaseMetaData"));
+                methodBuffer.append("return new ProxyDatabaseMetaData" + suffix + "(r,p);");
             } else if (methodName.equals("close")) {
                 continue;
             } else if (ctMethod.getReturnType() == CtClass.voidType) {
-                methodBuffer.append("raw." + methodName + "($$);");
+                methodBuffer.append(rawCall(rawType, "raw.", methodName, null));
             } else {
-                methodBuffer.append("return raw." + methodName + "($$);");
+                methodBuffer.append(rawCall(rawType, "raw.", methodName, ctMethod.getReturnType().getName()));
+                methodBuffer.append("return r;");
             }
 
             if (existsSQLException)
@@ -274,7 +415,7 @@ final class ProxyClassGenerator {
         }
     }
 
-    private static void createProxyStatementClass(ClassPool classPool, CtClass statementProxyClass, CtClass ctStatementClass, CtClass ctStatementSuperClass) throws Exception {
+    private static void createProxyStatementClass(ClassPool classPool, CtClass statementProxyClass, CtClass ctStatementClass, CtClass ctStatementSuperClass, String suffix, String rawType) throws Exception {
         LinkedList<CtMethod> linkedList = new LinkedList<CtMethod>();
         HashSet notNeedAddProxyMethods = findMethodsNotNeedProxy(ctStatementSuperClass);
         ProxyClassGenerator.resolveInterfaceMethods(ctStatementClass, linkedList, notNeedAddProxyMethods);
@@ -301,25 +442,25 @@ final class ProxyClassGenerator {
             if (existsSQLException) methodBuffer.append("  try{");
             if (ctMethod.getReturnType() == CtClass.voidType) {
                 if (methodName.startsWith("execute")) methodBuffer.append("p.commitDirtyInd=!p.curAutoCommit;");
-                methodBuffer.append(rawName + methodName + "($$);");
+                methodBuffer.append(rawCall(rawType, rawName, methodName, null));
                 if (methodName.startsWith("execute"))
-                    methodBuffer.append("p.lastAccessTime=System.currentTimeMillis();");
+                    methodBuffer.append("p.touchAccessTime();");
             } else {
                 if (methodName.startsWith("execute")) {
                     methodBuffer.append("p.commitDirtyInd=!p.curAutoCommit;");
-                    methodBuffer.append(ctMethod.getReturnType().getName() + " r=" + rawName + methodName + "($$);");
-                    methodBuffer.append("p.lastAccessTime=System.currentTimeMillis();");
+                    methodBuffer.append(rawCall(rawType, rawName, methodName, ctMethod.getReturnType().getName()));
+                    methodBuffer.append("p.touchAccessTime();");
                     if (ctMethod.getReturnType() == ctResultSetClass) {
-                        methodBuffer.append("return r==null?null:new ProxyResultSet(r,this,p);");
+                        methodBuffer.append("return r==null?null:new ProxyResultSet" + suffix + "(r,this,p);");
                     } else {
                         methodBuffer.append("return r;");
                     }
                 } else {
+                    methodBuffer.append(rawCall(rawType, rawName, methodName, ctMethod.getReturnType().getName()));
                     if (ctMethod.getReturnType() == ctResultSetClass) {
-                        methodBuffer.append(ctMethod.getReturnType().getName() + " r=" + rawName + methodName + "($$);");
-                        methodBuffer.append("return r==null?null:new ProxyResultSet(r,this,p);");
+                        methodBuffer.append("return r==null?null:new ProxyResultSet" + suffix + "(r,this,p);");
                     } else
-                        methodBuffer.append("return " + rawName + methodName + "($$);");
+                        methodBuffer.append("return r;");
                 }
             }
             if (existsSQLException)
@@ -331,7 +472,7 @@ final class ProxyClassGenerator {
     }
 
     //ctProxyDatabaseMetaDataClass,ctDatabaseMetaDataIntf,ctDatabaseMetaDataSuperClass
-    private static void createProxyDatabaseMetaDataClass(ClassPool classPool, CtClass ctProxyDatabaseMetaDataClass, CtClass ctDatabaseMetaDataIntf, CtClass ctDatabaseMetaDataSuperClass) throws Exception {
+    private static void createProxyDatabaseMetaDataClass(ClassPool classPool, CtClass ctProxyDatabaseMetaDataClass, CtClass ctDatabaseMetaDataIntf, CtClass ctDatabaseMetaDataSuperClass, String suffix) throws Exception {
         LinkedList<CtMethod> linkedList = new LinkedList<CtMethod>();
         HashSet notNeedAddProxyMethods = findMethodsNotNeedProxy(ctDatabaseMetaDataSuperClass);
         ProxyClassGenerator.resolveInterfaceMethods(ctDatabaseMetaDataIntf, linkedList, notNeedAddProxyMethods);
@@ -351,7 +492,7 @@ final class ProxyClassGenerator {
             if (existsSQLException) methodBuffer.append("  try{");
             if (ctMethod.getReturnType() == ctResultSetClass) {
                 methodBuffer.append("ResultSet r = raw." + methodName + "($$);");
-                methodBuffer.append("return r==null?null:new ProxyResultSet(r,p);");
+                methodBuffer.append("return r==null?null:new ProxyResultSet" + suffix + "(r,p);");
             } else if (ctMethod.getReturnType() == CtClass.voidType) {
                 methodBuffer.append("raw." + methodName + "($$);");
             } else {
@@ -366,7 +507,7 @@ final class ProxyClassGenerator {
         }
     }
 
-    private static void createProxyResultSetClass(CtClass ctResultSetClassProxyClass, CtClass ctResultSetClass, CtClass ctResultSetClassSuperClass) throws Exception {
+    private static void createProxyResultSetClass(CtClass ctResultSetClassProxyClass, CtClass ctResultSetClass, CtClass ctResultSetClassSuperClass, String rawType) throws Exception {
         LinkedList<CtMethod> linkedList = new LinkedList<CtMethod>();
         HashSet notNeedAddProxyMethods = findMethodsNotNeedProxy(ctResultSetClassSuperClass);
         ProxyClassGenerator.resolveInterfaceMethods(ctResultSetClass, linkedList, notNeedAddProxyMethods);
@@ -386,16 +527,17 @@ final class ProxyClassGenerator {
             if (existsSQLException) methodBuffer.append("  try{");
             if (methodName.startsWith("insert") || methodName.startsWith("update") || methodName.startsWith("delete")) {
                 if (ctMethod.getReturnType() == CtClass.voidType) {
-                    methodBuffer.append("raw." + methodName + "($$);").append(" p.updateAccessTime();");
+                    methodBuffer.append(rawCall(rawType, "raw.", methodName, null)).append(" p.updateAccessTime();");
                 } else {
-                    methodBuffer.append(ctMethod.getReturnType().getName() + " r=raw." + methodName + "($$);")
+                    methodBuffer.append(rawCall(rawType, "raw.", methodName, ctMethod.getReturnType().getName()))
                             .append(" p.updateAccessTime();").append(" return r;");
                 }
             } else {
                 if (ctMethod.getReturnType() == CtClass.voidType) {
-                    methodBuffer.append("raw." + methodName + "($$);");
+                    methodBuffer.append(rawCall(rawType, "raw.", methodName, null));
                 } else {
-                    methodBuffer.append("return raw." + methodName + "($$);");
+                    methodBuffer.append(rawCall(rawType, "raw.", methodName, ctMethod.getReturnType().getName()));
+                    methodBuffer.append("return r;");
                 }
             }
             if (existsSQLException)
@@ -406,6 +548,25 @@ final class ProxyClassGenerator {
         }
     }
 
+    /**
+     * source of a call on raw object,result is assigned to a local variable 'r' when return type is not void.
+     * When driver class is given,the call is typed to it,so call site is bound to driver class rather than
+     * an interface(placeholder objects of closed proxies are not instances of driver class,so they keep interface call)
+     *
+     * @param rawType    driver class name,null means call on interface
+     * @param rawRef     reference of raw object on interface,such as 'raw.' or '((PreparedStatement)raw).'
+     * @param methodName name of called method
+     * @param resultType type name of local variable 'r',null for void method
+     * @return call source
+     */
+    private static String rawCall(String rawType, String rawRef, String methodName, String resultType) {
+        String declare = resultType == null ? "" : resultType + " r;";
+        String assign = resultType == null ? "" : "r=";
+        if (rawType == null) return declare + assign + rawRef + methodName + "($$);";
+        return declare + "if(raw instanceof " + rawType + ")" + assign + "((" + rawType + ")raw)." + methodName + "($$);"
+                + "else " + assign + rawRef + methodName + "($$);";
+    }
+
     private static boolean exitsSQLException(CtClass[] exceptionTypes) throws Exception {
         if (exceptionTypes == null || exceptionTypes.length == 0) return false;
         for (CtClass exceptionClass : exceptionTypes) {
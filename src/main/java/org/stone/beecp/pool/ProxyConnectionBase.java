@@ -9,9 +9,12 @@
  */
 package org.stone.beecp.pool;
 
+import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.stone.beecp.pool.ConnectionPoolStatics.*;
 import static org.stone.tools.CommonUtil.objectEquals;
@@ -46,72 +49,261 @@ public abstract class ProxyConnectionBase extends ProxyBaseWrapper implements Co
         if (this.isClosed) throw new SQLException("No operations allowed after connection closed");
     }
 
-    synchronized final void registerStatement(ProxyStatementBase s) {
-        this.p.registerStatement(s);
+    final void registerStatement(ProxyStatementBase s) {
+        ReentrantLock lock = this.p.proxyLock;
+        lock.lock();
+        try {
+            this.p.registerStatement(s);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final void unregisterStatement(ProxyStatementBase s) {
+        ReentrantLock lock = this.p.proxyLock;
+        lock.lock();
+        try {
+            this.p.unregisterStatement(s);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    synchronized final void unregisterStatement(ProxyStatementBase s) {
-        this.p.unregisterStatement(s);
+    //mark proxy closed and close its open statements under lock,return false if already closed
+    private boolean markClosed() {
+        ReentrantLock lock = this.p.proxyLock;//a j.u.c lock not pin carrier thread of a virtual thread like a monitor
+        lock.lock();
+        try {
+            if (this.isClosed) return false;
+            this.isClosed = true;
+            this.raw = CLOSED_CON;
+            if (this.p.openStmSize > 0) this.p.clearStatement();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //prepare a statement,which may be taken from statement cache of pooled connection(zero of int parameters means not specified)
+    private ProxyStatementBase prepareProxyStatement(boolean callable, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        this.checkClosed();
+        PreparedStatementCache.Key key = null;
+        PreparedStatement ps = null;
+        if (this.p.stmCache != null) {
+            key = new PreparedStatementCache.Key(callable, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            ps = this.p.takeCachedStatement(key);
+        }
+
+        try {
+            if (ps == null) {
+                if (resultSetHoldability != 0) {
+                    ps = callable ? this.raw.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability) : this.raw.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+                } else if (resultSetType != 0) {
+                    ps = callable ? this.raw.prepareCall(sql, resultSetType, resultSetConcurrency) : this.raw.prepareStatement(sql, resultSetType, resultSetConcurrency);
+                } else {
+                    ps = callable ? this.raw.prepareCall(sql) : this.raw.prepareStatement(sql);
+                }
+            }
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+
+        ProxyObjectFactory factory = this.p.proxyFactory;
+        ProxyStatementBase s;
+        if (factory == null)
+            s = callable ? createProxyCsStatement((CallableStatement) ps, this, this.p) : createProxyPsStatement(ps, this, this.p);
+        else
+            s = callable ? factory.createProxyCsStatement((CallableStatement) ps, this, this.p) : factory.createProxyPsStatement(ps, this, this.p);
+        s.cacheKey = key;
+        return s;
     }
 
     //***************************************************************************************************************//
-    //                                              override methods (11)                                            //
+    //                                              override methods (17)                                            //
     //***************************************************************************************************************//
+    public final PreparedStatement prepareStatement(String sql) throws SQLException {
+        return (PreparedStatement) this.prepareProxyStatement(false, sql, 0, 0, 0);
+    }
+
+    public final PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return (PreparedStatement) this.prepareProxyStatement(false, sql, resultSetType, resultSetConcurrency, 0);
+    }
+
+    public final PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return (PreparedStatement) this.prepareProxyStatement(false, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    public final CallableStatement prepareCall(String sql) throws SQLException {
+        return (CallableStatement) this.prepareProxyStatement(true, sql, 0, 0, 0);
+    }
+
+    public final CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return (CallableStatement) this.prepareProxyStatement(true, sql, resultSetType, resultSetConcurrency, 0);
+    }
+
+    public final CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return (CallableStatement) this.prepareProxyStatement(true, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
     public boolean isClosed() {
         return this.isClosed;
     }
 
     //call by borrower,then return PooledConnection to pool
     public final void close() throws SQLException {
-        synchronized (this) {//safe close
-            if (this.isClosed) return;
-            this.isClosed = true;
-            this.raw = CLOSED_CON;
-            if (this.p.openStmSize > 0) this.p.clearStatement();
-        }
-        this.p.recycleSelf();
+        if (this.markClosed()) this.p.recycleSelf();
     }
 
     public final void setAutoCommit(boolean autoCommit) throws SQLException {
         if (p.commitDirtyInd) throw new SQLException("Change forbidden when in transaction");
+        if (this.p.curAutoCommit == autoCommit && this.p.isStateCached(PS_AUTO)) {//same value,no-op
+            this.checkClosed();
+            return;
+        }
         this.raw.setAutoCommit(autoCommit);
         this.p.curAutoCommit = autoCommit;
+        this.p.setStateCached(PS_AUTO);
         this.p.setResetInd(PS_AUTO, autoCommit != this.p.defaultAutoCommit);
     }
 
+    public final boolean getAutoCommit() throws SQLException {
+        if (this.p.isStateCached(PS_AUTO)) {
+            this.checkClosed();
+            return this.p.curAutoCommit;
+        }
+        try {
+            boolean autoCommit = this.raw.getAutoCommit();
+            this.p.curAutoCommit = autoCommit;
+            this.p.setStateCached(PS_AUTO);
+            return autoCommit;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
     public final void commit() throws SQLException {
         this.raw.commit();
         this.p.commitDirtyInd = false;
-        this.p.lastAccessTime = System.currentTimeMillis();
+        this.p.touchAccessTime();
     }
 
     public final void rollback() throws SQLException {
         this.raw.rollback();
         this.p.commitDirtyInd = false;
-        this.p.lastAccessTime = System.currentTimeMillis();
+        this.p.touchAccessTime();
     }
 
     public void setTransactionIsolation(int level) throws SQLException {
+        if (this.p.curTransactionIsolation == level && this.p.isStateCached(PS_TRANS)) {//same value,no-op
+            this.checkClosed();
+            return;
+        }
         this.raw.setTransactionIsolation(level);
+        this.p.curTransactionIsolation = level;
+        this.p.setStateCached(PS_TRANS);
         this.p.setResetInd(PS_TRANS, level != this.p.defaultTransactionIsolation);
     }
 
+    public int getTransactionIsolation() throws SQLException {
+        if (this.p.isStateCached(PS_TRANS)) {
+            this.checkClosed();
+            return this.p.curTransactionIsolation;
+        }
+        try {
+            int level = this.raw.getTransactionIsolation();
+            this.p.curTransactionIsolation = level;
+            this.p.setStateCached(PS_TRANS);
+            return level;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
     public void setReadOnly(boolean readOnly) throws SQLException {
+        if (this.p.curReadOnly == readOnly && this.p.isStateCached(PS_READONLY)) {//same value,no-op
+            this.checkClosed();
+            return;
+        }
         this.raw.setReadOnly(readOnly);
+        this.p.curReadOnly = readOnly;
+        this.p.setStateCached(PS_READONLY);
         this.p.setResetInd(PS_READONLY, readOnly != this.p.defaultReadOnly);
     }
 
+    public boolean isReadOnly() throws SQLException {
+        if (this.p.isStateCached(PS_READONLY)) {
+            this.checkClosed();
+            return this.p.curReadOnly;
+        }
+        try {
+            boolean readOnly = this.raw.isReadOnly();
+            this.p.curReadOnly = readOnly;
+            this.p.setStateCached(PS_READONLY);
+            return readOnly;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
     public void setCatalog(String catalog) throws SQLException {
+        if (this.p.isStateCached(PS_CATALOG) && objectEquals(catalog, this.p.curCatalog)) {//same value,no-op
+            this.checkClosed();
+            return;
+        }
         this.raw.setCatalog(catalog);
+        this.p.curCatalog = catalog;
+        this.p.setStateCached(PS_CATALOG);
         this.p.setResetInd(PS_CATALOG, p.forceDirtyOnCatalogAfterSet || !objectEquals(catalog, this.p.defaultCatalog));
     }
 
+    public String getCatalog() throws SQLException {
+        if (this.p.isStateCached(PS_CATALOG)) {
+            this.checkClosed();
+            return this.p.curCatalog;
+        }
+        try {
+            String catalog = this.raw.getCatalog();
+            this.p.curCatalog = catalog;
+            this.p.setStateCached(PS_CATALOG);
+            return catalog;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
     //--------------------------JDBC 4.1 -----------------------------
     public void setSchema(String schema) throws SQLException {
+        if (this.p.isStateCached(PS_SCHEMA) && objectEquals(schema, this.p.curSchema)) {//same value,no-op
+            this.checkClosed();
+            return;
+        }
         this.raw.setSchema(schema);
+        this.p.curSchema = schema;
+        this.p.setStateCached(PS_SCHEMA);
         this.p.setResetInd(PS_SCHEMA, p.forceDirtyOnSchemaAfterSet || !objectEquals(schema, this.p.defaultSchema));
     }
 
+    public String getSchema() throws SQLException {
+        if (this.p.isStateCached(PS_SCHEMA)) {
+            this.checkClosed();
+            return this.p.curSchema;
+        }
+        try {
+            String schema = this.raw.getSchema();
+            this.p.curSchema = schema;
+            this.p.setStateCached(PS_SCHEMA);
+            return schema;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
     public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
         if (this.p.supportNetworkTimeoutSet()) {
             this.raw.setNetworkTimeout(executor, milliseconds);
@@ -129,13 +321,7 @@ public abstract class ProxyConnectionBase extends ProxyBaseWrapper implements Co
     //*<li>Insures that any thread that is currently accessing the connection
     //*will either progress to completion or throw an <code>SQLException</code>.
     public void abort(Executor executor) {
-        synchronized (this) {//safe close
-            if (this.isClosed) return;
-            this.isClosed = true;
-            this.raw = CLOSED_CON;
-            if (this.p.openStmSize > 0) this.p.clearStatement();
-        }
-        this.p.removeSelf();//close raw connection and remove from pool
+        if (this.markClosed()) this.p.removeSelf();//close raw connection and remove from pool
     }
     //for JDK1.7 end
 }
@@ -0,0 +1,32 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Factory of proxies specialized to driver classes,which is generated by {@link ProxyClassGenerator} at pool startup
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+interface ProxyObjectFactory {
+
+    ProxyConnectionBase createProxyConnection(PooledConnection p) throws SQLException;
+
+    ResultSet createProxyResultSet(ResultSet raw, ProxyStatementBase owner, PooledConnection p) throws SQLException;
+
+    ProxyStatementBase createProxyPsStatement(PreparedStatement raw, ProxyConnectionBase owner, PooledConnection p) throws SQLException;
+
+    ProxyStatementBase createProxyCsStatement(CallableStatement raw, ProxyConnectionBase owner, PooledConnection p) throws SQLException;
+}
@@ -10,6 +10,7 @@
 package org.stone.beecp.pool;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -26,7 +27,10 @@ import static org.stone.beecp.pool.ConnectionPoolStatics.*;
 abstract class ProxyStatementBase extends ProxyBaseWrapper implements Statement {
     private final ProxyConnectionBase owner;
     protected Statement raw;
-    boolean registered = true;
+    int openIndex = -1;//index in open statement array of pooled connection,-1 means not registered
+    PreparedStatementCache.Key cacheKey;//not null when statement cache enabled
+    private boolean poolable;
+    private boolean propertyChanged;//true:statement properties changed by user,then not put back to cache
     private ProxyResultSetBase curRe;
     private ArrayList<ProxyResultSetBase> results;
     private int resultOpenCode = Statement.CLOSE_CURRENT_RESULT;
@@ -35,6 +39,7 @@ abstract class ProxyStatementBase extends ProxyBaseWrapper implements Statement
         super(p);
         this.raw = raw;
         this.owner = o;
+        this.poolable = raw instanceof PreparedStatement;//default value of jdbc spec
         owner.registerStatement(this);
     }
 
@@ -100,10 +105,11 @@ abstract class ProxyStatementBase extends ProxyBaseWrapper implements Statement
             this.results.clear();
         }
         try {
-            this.raw.close();
+            if (this.cacheKey == null || !this.poolable || this.propertyChanged || !this.p.putCachedStatement(this.cacheKey, (PreparedStatement) this.raw))
+                this.raw.close();
         } finally {
             this.raw = CLOSED_CSTM;//why? because Mysql's PreparedStatement just only remark as closed with useServerCache mode
-            if (this.registered) this.owner.unregisterStatement(this);
+            if (this.openIndex >= 0) this.owner.unregisterStatement(this);
         }
     }
 
@@ -125,11 +131,88 @@ abstract class ProxyStatementBase extends ProxyBaseWrapper implements Statement
                 if (resultSetBase.containsRaw(re)) return resultSetBase;
             }
         }
-        return createProxyResultSet(re, this, this.p);
+        return this.p.proxyFactory != null ? this.p.proxyFactory.createProxyResultSet(re, this, this.p) : createProxyResultSet(re, this, this.p);
     }
 
-    public void setPoolable(boolean var1) {
-        //do nothing
+    public void setPoolable(boolean poolable) throws SQLException {
+        if (this.isClosed) throw new SQLException("No operations allowed after statement closed");
+        this.poolable = poolable;//false,raw statement will be closed on close of proxy statement
+    }
+
+    public boolean isPoolable() throws SQLException {
+        if (this.isClosed) throw new SQLException("No operations allowed after statement closed");
+        return this.poolable;
+    }
+
+    //below setters mark statement changed,a changed statement is closed on close of proxy,not put back to cache
+    public void setMaxFieldSize(int max) throws SQLException {
+        try {
+            this.raw.setMaxFieldSize(max);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
+    public void setMaxRows(int max) throws SQLException {
+        try {
+            this.raw.setMaxRows(max);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        try {
+            this.raw.setEscapeProcessing(enable);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
+    public void setQueryTimeout(int seconds) throws SQLException {
+        try {
+            this.raw.setQueryTimeout(seconds);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
+    public void setCursorName(String name) throws SQLException {
+        try {
+            this.raw.setCursorName(name);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
+    public void setFetchDirection(int direction) throws SQLException {
+        try {
+            this.raw.setFetchDirection(direction);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
+    }
+
+    public void setFetchSize(int rows) throws SQLException {
+        try {
+            this.raw.setFetchSize(rows);
+            this.propertyChanged = true;
+        } catch (SQLException e) {
+            this.p.checkSQLException(e);
+            throw e;
+        }
     }
 
     public void closeOnCompletion() {
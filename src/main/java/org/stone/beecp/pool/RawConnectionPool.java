@@ -137,6 +137,17 @@ public final class RawConnectionPool implements BeeConnectionPool, BeeConnection
         }
     }
 
+    //borrow a connection from pool,raw connection is created in caller thread and filled to a completed future
+    public BeeConnectionFuture getConnectionAsync() {
+        ConnectionFuture future = new ConnectionFuture(null);
+        try {
+            future.complete(getConnection());
+        } catch (SQLException e) {
+            future.complete(e);
+        }
+        return future;
+    }
+
     /**
      * Connection return to pool after it end use,if exist waiter in pool,
      * then try to transfer the connection to one waiting borrower
@@ -170,6 +181,10 @@ public final class RawConnectionPool implements BeeConnectionPool, BeeConnection
         //do noting
     }
 
+    public boolean awaitConnectionReady(int size, long timeoutMillis) {
+        return true;//raw connections are created on borrowing,no need to wait
+    }
+
     /**
      * is pool shutdown
      */
@@ -214,6 +229,14 @@ public final class RawConnectionPool implements BeeConnectionPool, BeeConnection
         return 0;
     }
 
+    public String getCreationBreakerState() {
+        return "closed";
+    }
+
+    public long getCreationBreakerOpenCount() {
+        return 0L;
+    }
+
     //set pool info debug switch
     public void setPrintRuntimeLog(boolean enabledDebug) {
         //do nothing
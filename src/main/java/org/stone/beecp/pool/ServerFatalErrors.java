@@ -0,0 +1,61 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Error codes and SQL states of a database product,which mean that the server is shutdown,restarted or
+ * failed over,so not only the connection seeing them is broken,but also all other connections created before.
+ * Tables of MySQL(MariaDB),PostgreSQL,Oracle and SQL Server are built in,other products use common SQL states.
+ * Link failures(08S01,08006,socket or read timeout)are not included,they may be raised on one connection only.
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+final class ServerFatalErrors {
+    private static final String[] COMMON_STATES = {"57P01", "57P02", "57P03"};
+    private final Set<Integer> codeSet;
+    private final Set<String> stateSet;
+
+    private ServerFatalErrors(Integer[] codes, String[] states) {
+        this.codeSet = new HashSet<Integer>(Arrays.asList(codes));
+        this.stateSet = new HashSet<String>(Arrays.asList(states));
+    }
+
+    static ServerFatalErrors forProduct(String productName) {
+        String name = productName == null ? "" : productName.toLowerCase();
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            //shutdown in progress(1053),normal shutdown(1077),got signal(1078),shutdown complete(1079)
+            return new ServerFatalErrors(new Integer[]{1053, 1077, 1078, 1079}, new String[0]);
+        } else if (name.contains("postgresql")) {
+            //admin shutdown(57P01),crash shutdown(57P02),cannot connect now(57P03)
+            return new ServerFatalErrors(new Integer[0], COMMON_STATES);
+        } else if (name.contains("oracle")) {
+            //ORA-01033,01034,01089,01090,01092:instance in startup,shutdown or terminated
+            return new ServerFatalErrors(new Integer[]{1033, 1034, 1089, 1090, 1092}, new String[0]);
+        } else if (name.contains("sql server")) {
+            //shutdown in progress(6005),server paused(17142)
+            return new ServerFatalErrors(new Integer[]{6005, 17142}, new String[0]);
+        } else {
+            return new ServerFatalErrors(new Integer[0], COMMON_STATES);
+        }
+    }
+
+    boolean isServerFatal(SQLException e) {
+        int code = e.getErrorCode();
+        if (code != 0 && codeSet.contains(code)) return true;
+        String state = e.getSQLState();
+        return state != null && stateSet.contains(state);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter split into cells on cache lines of their own,borrowers increase cell of their home stripe,
+ * so counting on borrow path not contend on a single cache line,count value is sum of all cells.
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+final class StripedCounter {
+    private static final int CELL_SHIFT = 4;//16 longs(128 bytes) per cell
+    private final AtomicLongArray cells;
+    private final int cellCount;
+
+    StripedCounter(int cellCount) {
+        this.cellCount = cellCount;
+        this.cells = new AtomicLongArray((cellCount + 1) << CELL_SHIFT);//a leading cell as padding
+    }
+
+    void increment(int stripe) {
+        this.cells.incrementAndGet((stripe % this.cellCount + 1) << CELL_SHIFT);
+    }
+
+    long sum() {
+        long sum = 0L;
+        for (int i = 1; i <= this.cellCount; i++)
+            sum += this.cells.get(i << CELL_SHIFT);
+        return sum;
+    }
+}
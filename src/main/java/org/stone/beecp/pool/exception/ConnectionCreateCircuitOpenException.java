@@ -0,0 +1,23 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool.exception;
+
+/**
+ * connection creation rejected exception when circuit breaker on creation is open
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+public class ConnectionCreateCircuitOpenException extends ConnectionCreateException {
+
+    public ConnectionCreateCircuitOpenException(String message) {
+        super(message);
+    }
+}
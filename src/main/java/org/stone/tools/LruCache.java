@@ -1,34 +0,0 @@
-/*
- * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
- *
- * Copyright(C) Chris2018998,All rights reserved.
- *
- * Project owner contact:Chris2018998@tom.com.
- *
- * Project Licensed under Apache License v2.0.
- */
-package org.stone.tools;
-
-import java.util.LinkedHashMap;
-import java.util.Map;
-
-/**
- * Lru Cache
- *
- * @author Chris Liao
- * @version 1.0
- */
-public class LruCache<K, V> extends LinkedHashMap<K, V> {
-    private int maxSize;
-
-    public LruCache(int maxSize) {
-        super(maxSize, 0.75F, true);
-        this.maxSize = maxSize;
-    }
-
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-        return (size() > this.maxSize);
-    }
-}
-
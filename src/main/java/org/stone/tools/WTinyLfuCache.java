@@ -0,0 +1,431 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.tools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent bounded cache with W-TinyLFU policy.
+ *
+ * Entries are stored in a {@link ConcurrentHashMap},reads are lock-free and only recorded into striped lossy
+ * buffers;writes are recorded into a queue;both are replayed on policy queues by a thread who win a try-lock.
+ * Policy queues are a small lru window(1% of max size) and a segmented lru main space(probation and protected),
+ * a candidate from window is admitted into main space only when its estimated frequency(a count-min sketch with
+ * periodic aging) is higher than the victim of probation.
+ *
+ * @author Chris Liao
+ * @version 1.0
+ */
+public class WTinyLfuCache<K, V> {
+    private static final int QUEUE_NONE = 0;
+    private static final int QUEUE_WINDOW = 1;
+    private static final int QUEUE_PROBATION = 2;
+    private static final int QUEUE_PROTECTED = 3;
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE >> 1;
+    private static final int MAX_READ_BUFFER_STRIPES = 16;
+
+    private final int maxSize;
+    private final int windowMaxSize;
+    private final int protectedMaxSize;
+    private final RemovalListener<K, V> removalListener;
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ConcurrentLinkedQueue<Node<K, V>> writeBuffer;
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final int readBufferMask;
+    private final ReentrantLock maintenanceLock;
+
+    //below fields are guarded by maintenanceLock
+    private final FrequencySketch sketch;
+    private final AccessQueue<K, V> windowQueue;
+    private final AccessQueue<K, V> probationQueue;
+    private final AccessQueue<K, V> protectedQueue;
+
+    public WTinyLfuCache(int maxSize) {
+        this(maxSize, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * @param maxSize          max entry size of cache
+     * @param concurrencyLevel estimated count of threads reading cache concurrently,which decides stripe count of read buffers
+     * @param removalListener  notified with entries evicted by policy(not removed or replaced by callers),may be null
+     */
+    public WTinyLfuCache(int maxSize, int concurrencyLevel, RemovalListener<K, V> removalListener) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be greater than zero");
+        if (concurrencyLevel <= 0) throw new IllegalArgumentException("concurrencyLevel must be greater than zero");
+
+        this.maxSize = maxSize;
+        this.windowMaxSize = Math.max(1, maxSize / 100);
+        this.protectedMaxSize = (maxSize - windowMaxSize) * 4 / 5;
+        this.removalListener = removalListener;
+        this.data = new ConcurrentHashMap<K, Node<K, V>>(Math.min(maxSize, 1024));
+        this.writeBuffer = new ConcurrentLinkedQueue<Node<K, V>>();
+        this.maintenanceLock = new ReentrantLock();
+
+        int stripes = tableSizeFor(Math.min(concurrencyLevel, MAX_READ_BUFFER_STRIPES));
+        this.readBuffers = newReadBuffers(stripes);
+        for (int i = 0; i < stripes; i++)
+            this.readBuffers[i] = new ReadBuffer<K, V>();
+        this.readBufferMask = stripes - 1;
+
+        this.sketch = new FrequencySketch(maxSize);
+        this.windowQueue = new AccessQueue<K, V>();
+        this.probationQueue = new AccessQueue<K, V>();
+        this.protectedQueue = new AccessQueue<K, V>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> ReadBuffer<K, V>[] newReadBuffers(int size) {
+        return (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[size];
+    }
+
+    private static int tableSizeFor(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    //***************************************************************************************************************//
+    //                                          1: cache methods(6)                                                  //
+    //***************************************************************************************************************//
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) return null;
+
+        ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & readBufferMask];
+        if (buffer.offer(node)) tryToMaintain();
+        return node.value;
+    }
+
+    public V put(K key, V value) {
+        if (key == null || value == null) throw new NullPointerException();
+
+        Node<K, V> node = new Node<K, V>(key, spread(key.hashCode()), value);
+        Node<K, V> prior = data.put(key, node);
+        writeBuffer.offer(node);
+        if (prior != null) {
+            prior.retired = true;
+            writeBuffer.offer(prior);
+        }
+        tryToMaintain();
+        return prior != null ? prior.value : null;
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node == null) return null;
+
+        node.retired = true;
+        writeBuffer.offer(node);
+        tryToMaintain();
+        return node.value;
+    }
+
+    //snapshot of values in cache
+    public Collection<V> values() {
+        List<V> values = new ArrayList<V>(data.size());
+        for (Node<K, V> node : data.values())
+            values.add(node.value);
+        return values;
+    }
+
+    //remove all entries without notification to removal listener
+    public void clear() {
+        maintenanceLock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    node.retired = true;
+                    unlink(node);
+                }
+            }
+            maintain();
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                          2: policy maintenance(6)                                             //
+    //***************************************************************************************************************//
+    private void tryToMaintain() {
+        do {
+            if (!maintenanceLock.tryLock()) return;
+            try {
+                maintain();
+            } finally {
+                maintenanceLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void maintain() {
+        for (ReadBuffer<K, V> buffer : readBuffers)
+            buffer.drainTo(this);
+
+        Node<K, V> node;
+        while ((node = writeBuffer.poll()) != null) {
+            if (node.retired) {
+                unlink(node);
+            } else if (node.queueType == QUEUE_NONE) {
+                sketch.increment(node.hash);
+                node.queueType = QUEUE_WINDOW;
+                windowQueue.addLast(node);
+            }
+        }
+        evict();
+    }
+
+    private void onAccess(Node<K, V> node) {
+        sketch.increment(node.hash);
+        if (node.retired) return;
+
+        switch (node.queueType) {
+            case QUEUE_WINDOW:
+                windowQueue.moveToLast(node);
+                break;
+            case QUEUE_PROBATION: {//promote to protected
+                probationQueue.remove(node);
+                node.queueType = QUEUE_PROTECTED;
+                protectedQueue.addLast(node);
+                while (protectedQueue.size > protectedMaxSize) {
+                    Node<K, V> demoted = protectedQueue.pollFirst();
+                    demoted.queueType = QUEUE_PROBATION;
+                    probationQueue.addLast(demoted);
+                }
+                break;
+            }
+            case QUEUE_PROTECTED:
+                protectedQueue.moveToLast(node);
+                break;
+            default://not linked yet or has been evicted
+        }
+    }
+
+    //each node evicted from window is a candidate,which competes with victim of probation when main space is full
+    private void evict() {
+        int mainMaxSize = maxSize - windowMaxSize;
+        while (windowQueue.size > windowMaxSize) {
+            Node<K, V> candidate = windowQueue.pollFirst();
+            candidate.queueType = QUEUE_PROBATION;
+            probationQueue.addLast(candidate);
+            if (probationQueue.size + protectedQueue.size <= mainMaxSize) continue;
+
+            Node<K, V> victim = probationQueue.head != candidate ? probationQueue.head : protectedQueue.head;
+            if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash))
+                evictNode(candidate);//admission rejected
+            else
+                evictNode(victim);
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        unlink(node);
+        if (data.remove(node.key, node)) {
+            node.retired = true;
+            if (removalListener != null) removalListener.onRemoval(node.key, node.value);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queueType) {
+            case QUEUE_WINDOW:
+                windowQueue.remove(node);
+                break;
+            case QUEUE_PROBATION:
+                probationQueue.remove(node);
+                break;
+            case QUEUE_PROTECTED:
+                protectedQueue.remove(node);
+                break;
+            default:
+                return;
+        }
+        node.queueType = QUEUE_NONE;
+    }
+
+    //***************************************************************************************************************//
+    //                                          3: inner interfaces and classes(5)                                   //
+    //***************************************************************************************************************//
+    public interface RemovalListener<K, V> {
+        void onRemoval(K key, V value);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        final V value;
+        volatile boolean retired;//removed from map
+
+        //below fields are guarded by maintenanceLock
+        int queueType;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, int hash, V value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    //access ordered double linked queue,head is the least recently used node
+    private static final class AccessQueue<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        int size;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null)
+                head = node;
+            else
+                tail.next = node;
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            Node<K, V> prev = node.prev, next = node.next;
+            if (prev == null)
+                head = next;
+            else
+                prev.next = next;
+            if (next == null)
+                tail = prev;
+            else
+                next.prev = prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = head;
+            if (node != null) remove(node);
+            return node;
+        }
+    }
+
+    //bounded lossy buffer with multi producers and single consumer(the holder of maintenance lock)
+    private static final class ReadBuffer<K, V> {
+        private final AtomicLong writeCount = new AtomicLong();
+        private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<Node<K, V>>(READ_BUFFER_SIZE);
+        private volatile long readCount;
+
+        //return true when buffer need be drained
+        boolean offer(Node<K, V> node) {
+            long head = readCount;
+            long tail = writeCount.get();
+            long size = tail - head;
+            if (size >= READ_BUFFER_SIZE) return true;//full,read is dropped
+            if (writeCount.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) tail & READ_BUFFER_MASK, node);
+                return size + 1 >= READ_DRAIN_THRESHOLD;
+            }
+            return false;//contended,read is dropped
+        }
+
+        void drainTo(WTinyLfuCache<K, V> cache) {
+            long head = readCount;
+            long tail = writeCount.get();
+            for (; head < tail; head++) {
+                int index = (int) head & READ_BUFFER_MASK;
+                Node<K, V> node = slots.get(index);
+                if (node == null) break;//slot claimed,but not published yet
+
+                slots.lazySet(index, null);
+                cache.onAccess(node);
+            }
+            readCount = head;
+        }
+    }
+
+    //count-min sketch with four 4-bit counters for each key,all counters are halved after sample size reached
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(int maxSize) {
+            int capacity = Math.max(maxSize, 8);
+            this.table = new long[tableSizeFor(Math.min(capacity, 1 << 24))];
+            this.tableMask = table.length - 1;
+            this.sampleSize = capacity >= Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : capacity * 10;
+        }
+
+        int frequency(int hash) {
+            int start = (hash & 3) << 2;
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = (start + i) << 2;
+                if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size == sampleSize) reset();
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++)
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            size >>>= 1;
+        }
+    }
+}
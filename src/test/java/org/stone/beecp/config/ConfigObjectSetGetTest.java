@@ -11,7 +11,10 @@ package org.stone.beecp.config;
 
 import junit.framework.TestCase;
 import org.stone.base.TestException;
+import org.stone.beecp.AliveTestPolicy;
 import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.BeeDataSourceConfigException;
+import org.stone.beecp.IdleSelectPolicy;
 
 public class ConfigObjectSetGetTest extends TestCase {
 
@@ -52,6 +55,30 @@ public class ConfigObjectSetGetTest extends TestCase {
         config.setMaxActive(5);
         config.setBorrowSemaphoreSize(0);
         config.setBorrowSemaphoreSize(5);
+        config.setEnableThreadLocal(false);
+        if (config.isEnableThreadLocal()) throw new TestException();
+        config.setMaxConcurrentCreation(0);
+        config.setMaxConcurrentCreation(2);
+        if (config.getMaxConcurrentCreation() != 2) throw new TestException();
+        config.setStatementCacheSize(-1);
+        config.setStatementCacheSize(20);
+        if (config.getStatementCacheSize() != 20) throw new TestException();
+        config.setIdleSelectPolicy("lowest_slot");
+        if (!IdleSelectPolicy.POLICY_LOWEST_SLOT.equals(config.getIdleSelectPolicy())) throw new TestException();
+        try {
+            config.setIdleSelectPolicy("Test");
+            throw new TestException();
+        } catch (BeeDataSourceConfigException e) {
+            if (!e.getMessage().startsWith("Invalid idle select policy")) throw new TestException();
+        }
+        config.setAliveTestPolicy("cached_sql");
+        if (!AliveTestPolicy.POLICY_CACHED_SQL.equals(config.getAliveTestPolicy())) throw new TestException();
+        try {
+            config.setAliveTestPolicy("Test");
+            throw new TestException();
+        } catch (BeeDataSourceConfigException e) {
+            if (!e.getMessage().startsWith("Invalid alive test policy")) throw new TestException();
+        }
         config.setMaxWait(0L);
         config.setMaxWait(5000L);
         config.setConnectTimeout(0);
@@ -9,6 +9,7 @@
  */
 package org.stone.beecp.dataSource;
 
+import org.stone.beecp.BeeConnectionFuture;
 import org.stone.beecp.BeeConnectionPool;
 import org.stone.beecp.BeeConnectionPoolMonitorVo;
 import org.stone.beecp.BeeDataSourceConfig;
@@ -34,6 +35,10 @@ class DummyPoolImplementation implements BeeConnectionPool {
         return null;
     }
 
+    public BeeConnectionFuture getConnectionAsync() {
+        return null;
+    }
+
     public void close() {
     }
 
@@ -55,6 +60,10 @@ class DummyPoolImplementation implements BeeConnectionPool {
     public void interruptThreadsOnCreationLock() {
     }
 
+    public boolean awaitConnectionReady(int size, long timeoutMillis) {
+        return true;
+    }
+
     public void clear(boolean forceCloseUsing) {
     }
 
@@ -0,0 +1,29 @@
+package org.stone.beecp.factory;
+
+import org.stone.beecp.RawConnectionFactory;
+import org.stone.beecp.mock.MockDriver;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentCountConnectionFactory implements RawConnectionFactory {
+    private final CountDownLatch latch;
+    private final MockDriver driver = new MockDriver();
+
+    public ConcurrentCountConnectionFactory(int concurrentCount) {
+        this.latch = new CountDownLatch(concurrentCount);
+    }
+
+    //create connection instance only when count of concurrent creating threads reach expected size
+    public Connection create() throws SQLException {
+        latch.countDown();
+        try {
+            if (!latch.await(3, TimeUnit.SECONDS)) return null;
+        } catch (InterruptedException e) {
+            return null;
+        }
+        return driver.connect("testdb", null);
+    }
+}
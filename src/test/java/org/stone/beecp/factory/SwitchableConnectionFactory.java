@@ -0,0 +1,29 @@
+package org.stone.beecp.factory;
+
+import org.stone.beecp.RawConnectionFactory;
+import org.stone.beecp.mock.MockDriver;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SwitchableConnectionFactory implements RawConnectionFactory {
+    private final MockDriver driver = new MockDriver();
+    private final AtomicInteger createCount = new AtomicInteger(0);
+    private volatile boolean down;
+
+    public void setDown(boolean down) {
+        this.down = down;
+    }
+
+    public int getCreateCount() {
+        return createCount.get();
+    }
+
+    //throw an exception like an unreachable database when switched down
+    public Connection create() throws SQLException {
+        createCount.incrementAndGet();
+        if (down) throw new SQLException("Database unreachable", "08001");
+        return driver.connect("testdb", null);
+    }
+}
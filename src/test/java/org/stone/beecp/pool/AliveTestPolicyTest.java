@@ -0,0 +1,101 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+import org.stone.beecp.AliveTestPolicy;
+import org.stone.beecp.BeeConnectionAliveTest;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AliveTestPolicyTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(BeeDataSourceConfig config) throws Exception {
+        config.setMaxActive(1);
+        config.setAliveAssumeTime(0L);//test on every borrow
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    private PooledConnection borrowAndReturn() throws Exception {
+        Thread.sleep(5L);
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        con.close();
+        return p;
+    }
+
+    public void testAutoPolicy() throws Exception {
+        initPool(ConfigFactory.createDefault());
+        borrowAndReturn();
+        borrowAndReturn();
+
+        BeeConnectionPoolMonitorVo vo = pool.getPoolMonitorVo();
+        TestUtil.assertError("alive test policy expect value:%s,actual value:%s", AliveTestPolicy.POLICY_IS_VALID, vo.getAliveTestPolicy());
+        if (vo.getAliveTestCount() < 1L) throw new TestException("Alive tests not counted");
+        TestUtil.assertError("failed alive test count expect value:%s,actual value:%s", 0L, vo.getAliveTestFailedCount());
+    }
+
+    public void testCachedSqlPolicy() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setAliveTestPolicy(AliveTestPolicy.POLICY_CACHED_SQL);
+        initPool(config);
+        borrowAndReturn();
+        Statement st = borrowAndReturn().aliveTestStatement;
+        if (st == null) throw new TestException("Test statement not cached");
+        if (borrowAndReturn().aliveTestStatement != st) throw new TestException("Cached test statement not reused");
+        TestUtil.assertError("alive test policy expect value:%s,actual value:%s", AliveTestPolicy.POLICY_CACHED_SQL, pool.getPoolMonitorVo().getAliveTestPolicy());
+    }
+
+    public void testNonePolicy() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setAliveTestPolicy("none");
+        initPool(config);
+        borrowAndReturn();
+        borrowAndReturn();
+        TestUtil.assertError("alive test policy expect value:%s,actual value:%s", AliveTestPolicy.POLICY_NONE, pool.getPoolMonitorVo().getAliveTestPolicy());
+        TestUtil.assertError("failed alive test count expect value:%s,actual value:%s", 0L, pool.getPoolMonitorVo().getAliveTestFailedCount());
+    }
+
+    public void testCustomAliveTest() throws Exception {
+        CountAliveTest aliveTest = new CountAliveTest();
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setAliveTestPolicy(AliveTestPolicy.POLICY_NONE);//replaced by custom alive test
+        config.setAliveTest(aliveTest);
+        initPool(config);
+        borrowAndReturn();
+        borrowAndReturn();
+
+        if (aliveTest.testCount.get() == 0) throw new TestException("Custom alive test not called");
+        TestUtil.assertError("alive test policy expect value:%s,actual value:%s", CountAliveTest.class.getName(), pool.getPoolMonitorVo().getAliveTestPolicy());
+        TestUtil.assertError("alive test count expect value:%s,actual value:%s", (long) aliveTest.testCount.get(), pool.getPoolMonitorVo().getAliveTestCount());
+    }
+
+    private static final class CountAliveTest implements BeeConnectionAliveTest {
+        private final AtomicInteger testCount = new AtomicInteger();
+
+        public boolean isAlive(Connection rawConn, int timeout) {
+            testCount.incrementAndGet();
+            return true;
+        }
+    }
+}
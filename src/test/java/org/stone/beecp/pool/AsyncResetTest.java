@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.stone.beecp.pool.ConnectionPoolStatics.*;
+
+public class AsyncResetTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setEnableAsyncReset(true);
+        config.setDelayTimeForNextClear(100L);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testDirtyConnectionResetInBackground() throws Exception {
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        con.setAutoCommit(!p.defaultAutoCommit);//make it dirty
+        con.close();
+
+        Thread.sleep(200L);
+        if (p.state != CON_IDLE) throw new TestException("Dirty connection not returned to idle after reset");
+        if (p.curAutoCommit != p.defaultAutoCommit) throw new TestException("Dirty connection not reset");
+
+        con = pool.getConnection();
+        try {
+            if (((ProxyConnectionBase) con).p.curAutoCommit != p.defaultAutoCommit)
+                throw new TestException("Borrowed a dirty connection");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testCleanConnectionReturnedAtOnce() throws Exception {
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        con.close();
+        if (p.state != CON_IDLE) throw new TestException("Clean connection not returned to idle at once");
+    }
+
+    public void testResettingConnectionSkippedByClear() throws Exception {
+        Field field = FastConnectionPool.class.getDeclaredField("resetExecutor");
+        field.setAccessible(true);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) field.get(pool);
+        final CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(new Runnable() {//occupy reset thread
+            public void run() {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    //do nothing
+                }
+            }
+        });
+
+        Thread clearThread = null;
+        try {
+            Connection con = pool.getConnection();
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            con.setAutoCommit(!p.defaultAutoCommit);//make it dirty
+            con.close();
+            if (p.state != CON_RESETTING) throw new TestException("Dirty connection not in resetting");
+
+            clearThread = new Thread() {
+                public void run() {
+                    pool.clear(false);
+                }
+            };
+            clearThread.start();
+            Thread.sleep(200L);
+            if (p.rawConn.isClosed()) throw new TestException("Connection closed by clear in resetting");
+
+            gate.countDown();
+            clearThread.join(2000L);
+            if (p.state != CON_CLOSED) throw new TestException("Connection not removed after resetting");
+        } finally {
+            gate.countDown();
+            if (clearThread != null) clearThread.join(2000L);
+        }
+    }
+
+    public void testRemovedConnectionClosedInBackground() throws Exception {
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        con.close();
+
+        pool.abandonOnReturn(p, ConnectionPoolStatics.DESC_RM_BAD);
+        if (pool.getTotalSize() != 0) throw new TestException("Removed connection still in pool");
+        Thread.sleep(200L);
+        if (p.state != CON_CLOSED || !p.rawConn.isClosed()) throw new TestException("Removed connection not closed");
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.tools.unsafe.UnsafeAdaptor;
+import org.stone.tools.unsafe.UnsafeAdaptorHolder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+public class CacheLinePaddingTest extends TestCase {
+    private static final int CACHE_LINE_SIZE = 64;
+
+    public void testConnectionStateLayout() throws Exception {
+        checkStateLayout(CacheLinePadding.ConnectionState.class, PooledConnection.class);
+    }
+
+    public void testBorrowerStateLayout() throws Exception {
+        checkStateLayout(CacheLinePadding.BorrowerState.class, Borrower.class);
+    }
+
+    private static void checkStateLayout(Class<?> stateClass, Class<?> ownerClass) throws Exception {
+        UnsafeAdaptor ua = UnsafeAdaptorHolder.U;
+        long stateOffset = ua.objectFieldOffset(stateClass.getDeclaredField("state"));
+        if (stateOffset < CACHE_LINE_SIZE)
+            throw new TestException("State field offset:" + stateOffset + " is within first cache line");
+
+        for (Field field : ownerClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            long offset = ua.objectFieldOffset(field);
+            if (offset - stateOffset < CACHE_LINE_SIZE)
+                throw new TestException("Field[" + field.getName() + "]offset:" + offset + " is near to state offset:" + stateOffset);
+        }
+    }
+}
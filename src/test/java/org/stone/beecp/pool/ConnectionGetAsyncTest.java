@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeConnectionAliveTest;
+import org.stone.beecp.BeeConnectionFuture;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+import org.stone.beecp.pool.exception.ConnectionGetTimeoutException;
+
+import java.sql.Connection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConnectionGetAsyncTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setBorrowSemaphoreSize(1);
+        config.setMaxWait(1000);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testCompleteByServantCreation() throws Exception {
+        BeeConnectionFuture future = pool.getConnectionAsync();
+        Connection con = future.get(3, TimeUnit.SECONDS);
+        try {
+            TestUtil.assertError("total size expect value:%s,actual value:%s", 1, pool.getTotalSize());
+        } finally {
+            ConnectionPoolStatics.oclose(con);
+        }
+    }
+
+    public void testCompleteByRelease() throws Exception {
+        Connection con1 = pool.getConnection();
+        BeeConnectionFuture future = pool.getConnectionAsync();
+        final AtomicBoolean listenerRun = new AtomicBoolean();
+        future.addListener(new Runnable() {
+            public void run() {
+                listenerRun.set(true);
+            }
+        });
+        if (future.isDone()) TestUtil.assertError("future should not be done before release");
+
+        ConnectionPoolStatics.oclose(con1);
+        if (!future.isDone()) TestUtil.assertError("future should be done by release");
+        if (!listenerRun.get()) TestUtil.assertError("listener not run on completion");
+        ConnectionPoolStatics.oclose(future.get());
+    }
+
+    public void testTimeout() throws Exception {
+        Connection con1 = pool.getConnection();
+        try {
+            BeeConnectionFuture future = pool.getConnectionAsync();
+            try {
+                future.get(3, TimeUnit.SECONDS);
+                TestUtil.assertError("future should be done with timeout");
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof ConnectionGetTimeoutException))
+                    TestUtil.assertError("future should be done with timeout");
+            }
+            TestUtil.assertError("transfer waiting size expect value:%s,actual value:%s", 0, pool.getTransferWaitingSize());
+        } finally {
+            ConnectionPoolStatics.oclose(con1);
+        }
+    }
+
+    public void testAliveTestNotInCallerThread() throws Exception {
+        pool.close();
+        final AtomicReference<Thread> testThread = new AtomicReference<Thread>();
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setAliveAssumeTime(0L);
+        config.setAliveTest(new BeeConnectionAliveTest() {
+            public boolean isAlive(Connection rawConn, int timeout) {
+                testThread.set(Thread.currentThread());
+                return true;
+            }
+        });
+        pool = new FastConnectionPool();
+        pool.init(config);
+
+        ConnectionPoolStatics.oclose(pool.getConnection());
+        Thread.sleep(100L);//exceed alive assume time
+        testThread.set(null);
+
+        Connection con = pool.getConnectionAsync().get(3, TimeUnit.SECONDS);
+        try {
+            if (testThread.get() == null) throw new TestException("Idle connection not tested before borrowed");
+            if (testThread.get() == Thread.currentThread()) throw new TestException("Alive test run in caller thread");
+        } finally {
+            ConnectionPoolStatics.oclose(con);
+        }
+    }
+
+    public void testCancel() throws Exception {
+        Connection con1 = pool.getConnection();
+        BeeConnectionFuture future = pool.getConnectionAsync();
+        if (!future.cancel(false) || !future.isCancelled())
+            TestUtil.assertError("future cancel failed");
+        ConnectionPoolStatics.oclose(con1);
+        TestUtil.assertError("idle size expect value:%s,actual value:%s", 1, pool.getIdleSize());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.factory.SwitchableConnectionFactory;
+import org.stone.beecp.pool.exception.ConnectionCreateCircuitOpenException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public class CreationCircuitBreakerTest extends TestCase {
+    private FastConnectionPool pool;
+    private SwitchableConnectionFactory factory;
+
+    public void setUp() throws Exception {
+        factory = new SwitchableConnectionFactory();
+        BeeDataSourceConfig config = new BeeDataSourceConfig();
+        config.setRawConnectionFactory(factory);
+        config.setMaxActive(2);
+        config.setMaxWait(500L);
+        config.setCreationFailureThreshold(2);
+        config.setCreationProbeMaxInterval(200L);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testFailFastAndRecoverByProbe() throws Exception {
+        factory.setDown(true);
+        for (int i = 0; i < 2; i++) {
+            try {
+                pool.getConnection().close();
+                throw new TestException("Connection got from unreachable database");
+            } catch (ConnectionCreateCircuitOpenException e) {
+                throw new TestException("Circuit breaker opened before threshold");
+            } catch (SQLException e) {
+                //failure on creation
+            }
+        }
+        if (!"open".equals(pool.getCreationBreakerState())) throw new TestException("Circuit breaker not opened");
+        if (pool.getCreationBreakerOpenCount() != 1L) throw new TestException("Open count of circuit breaker not increased");
+
+        int createCount = factory.getCreateCount();
+        try {
+            pool.getConnection().close();
+            throw new TestException("Connection got when circuit breaker open");
+        } catch (ConnectionCreateCircuitOpenException e) {
+            if (factory.getCreateCount() != createCount) throw new TestException("Creation not rejected by circuit breaker");
+        }
+
+        factory.setDown(false);
+        Thread.sleep(600L);//probe in background
+        if (!"closed".equals(pool.getCreationBreakerState())) throw new TestException("Circuit breaker not closed after probe");
+        if (pool.getTotalSize() != 1) throw new TestException("Connection not created by probe");
+        if (!"closed".equals(pool.getPoolMonitorVo().getCreationBreakerState()))
+            throw new TestException("Breaker state not in monitor object");
+
+        Connection con = pool.getConnection();
+        con.close();
+    }
+
+    public void testClearWhileBreakerOpen() throws Exception {
+        pool.close();
+        BeeDataSourceConfig config = new BeeDataSourceConfig();
+        config.setRawConnectionFactory(factory);
+        config.setMaxActive(2);
+        config.setMaxWait(500L);
+        config.setMaxLifetime(300L);
+        config.setDelayTimeForNextClear(100L);
+        config.setCreationFailureThreshold(2);
+        config.setCreationProbeMaxInterval(200L);
+        pool = new FastConnectionPool();
+        pool.init(config);
+
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        factory.setDown(true);
+        for (int i = 0; i < 2; i++) {
+            try {
+                pool.getConnection().close();
+            } catch (SQLException e) {
+                //failure on creation
+            }
+        }
+        if (!"open".equals(pool.getCreationBreakerState())) throw new TestException("Circuit breaker not opened");
+        Thread.sleep(400L);//expired in using
+        con.close();//retired while database is down
+
+        Thread clearThread = new Thread() {
+            public void run() {
+                pool.clear(false);
+            }
+        };
+        clearThread.start();
+        clearThread.join(3000L);
+        if (clearThread.isAlive()) throw new TestException("Clear blocked while circuit breaker open");
+        if (p.state != ConnectionPoolStatics.CON_CLOSED) throw new TestException("Retiring connection not removed");
+        if (!"closed".equals(pool.getCreationBreakerState())) throw new TestException("Circuit breaker not reset by clear");
+
+        factory.setDown(false);
+        pool.getConnection().close();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.*;
+
+public class DriverSpecializedProxyTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setEnableDriverSpecializedProxy(true);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testSpecializedProxies() throws Exception {
+        Connection con = pool.getConnection();
+        try {
+            if (con.getClass() == ProxyConnection.class) throw new TestException("Specialized proxy not generated");
+            if (!con.getClass().getName().startsWith("org.stone.beecp.pool.ProxyConnection_"))
+                throw new TestException();
+
+            Statement st = con.createStatement();
+            if (st.getClass() == ProxyStatement.class) throw new TestException();
+            ResultSet rs = st.executeQuery("select 1");
+            if (rs.getClass() == ProxyResultSet.class) throw new TestException();
+            if (rs.getStatement() != st) throw new TestException();
+            st.close();
+            if (!rs.isClosed()) throw new TestException();
+
+            PreparedStatement ps = con.prepareStatement("select 1");
+            if (ps.getClass() == ProxyPsStatement.class) throw new TestException();
+            ps.setInt(1, 1);
+            ps.close();
+            try {
+                ps.setInt(1, 1);//placeholder of closed statement is not a driver object
+                throw new TestException("Closed statement not detected");
+            } catch (SQLException e) {
+                //expected
+            }
+
+            CallableStatement cs = con.prepareCall("{call test()}");
+            if (cs.getConnection() != con) throw new TestException();
+            cs.close();
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testClassesSharedByPools() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setEnableDriverSpecializedProxy(true);
+        FastConnectionPool pool2 = new FastConnectionPool();
+        pool2.init(config);
+        try {
+            Connection con1 = pool.getConnection();
+            Connection con2 = pool2.getConnection();
+            TestUtil.assertError("proxy class expect value:%s,actual value:%s", con1.getClass(), con2.getClass());
+            con1.close();
+            con2.close();
+        } finally {
+            pool2.close();
+        }
+    }
+}
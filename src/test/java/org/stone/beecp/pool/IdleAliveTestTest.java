@@ -0,0 +1,66 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+
+public class IdleAliveTestTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(long idleAliveTestInterval) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(1);
+        config.setMaxActive(1);
+        config.setAliveAssumeTime(300L);
+        config.setIdleAliveTestInterval(idleAliveTestInterval);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void testIdleConnectionTestedInBackground() throws Exception {
+        initPool(100L);
+        Thread.sleep(800L);//over alive assume time
+
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            if (p.lastAliveTime == 0L) throw new TestException("Idle connection not tested in background");
+            if (System.currentTimeMillis() - p.lastAliveTime > 300L)
+                throw new TestException("Alive time of idle connection is stale");
+            if (p.lastAccessTime != p.creationTime)
+                throw new TestException("Access time changed by alive test");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testNotTestedInBackgroundByDefault() throws Exception {
+        initPool(0L);
+        Thread.sleep(400L);
+
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            if (p.lastAliveTime != 0L) throw new TestException("Idle connection tested in background");
+            if (p.lastAccessTime == p.creationTime) throw new TestException("Connection not tested on borrow");
+        } finally {
+            con.close();
+        }
+    }
+}
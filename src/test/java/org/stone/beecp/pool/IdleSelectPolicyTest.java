@@ -0,0 +1,65 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.IdleSelectPolicy;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+
+public class IdleSelectPolicyTest extends TestCase {
+    private final int initSize = 4;
+
+    private FastConnectionPool createPool(String policy) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(initSize);
+        config.setMaxActive(initSize);
+        config.setEnableThreadLocal(false);
+        config.setIdleSelectPolicy(policy);
+        FastConnectionPool pool = new FastConnectionPool();
+        pool.init(config);
+        return pool;
+    }
+
+    private PooledConnection borrowAndReturn(FastConnectionPool pool) throws Exception {
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        con.close();
+        return p;
+    }
+
+    public void testLowestSlotReuseConnection() throws Exception {
+        FastConnectionPool pool = createPool(IdleSelectPolicy.POLICY_LOWEST_SLOT);
+        try {
+            PooledConnection p = borrowAndReturn(pool);
+            for (int i = 0; i < initSize * 2; i++) {
+                if (borrowAndReturn(pool) != p) throw new TestException();
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testRoundRobinSelectInTurn() throws Exception {
+        FastConnectionPool pool = createPool(IdleSelectPolicy.POLICY_ROUND_ROBIN);
+        try {
+            PooledConnection first = borrowAndReturn(pool);
+            for (int i = 1; i < initSize; i++) {
+                if (borrowAndReturn(pool) == first) throw new TestException();
+            }
+            if (borrowAndReturn(pool) != first) throw new TestException();//back to first one after a turn
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+
+public class KeepaliveTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(long keepaliveTime) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(2);
+        config.setMaxActive(2);
+        config.setKeepaliveTime(keepaliveTime);
+        config.setTimerCheckInterval(100L);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void testIdleConnectionsPinged() throws Exception {
+        initPool(200L);
+        Thread.sleep(800L);
+
+        BeeConnectionPoolMonitorVo vo = pool.getPoolMonitorVo();
+        if (vo.getKeepaliveCount() < 2) throw new TestException("Idle connections not pinged");
+        if (vo.getKeepaliveFailedCount() != 0) throw new TestException("Keepalive failed on alive connections");
+        if (pool.getTotalSize() != 2) throw new TestException("Idle connections removed by keepalive");
+
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            if (p.lastAliveTime == 0L) throw new TestException("Alive time not updated by keepalive");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testNotPingedByDefault() throws Exception {
+        initPool(0L);
+        Thread.sleep(400L);
+        if (pool.getPoolMonitorVo().getKeepaliveCount() != 0L) throw new TestException("Idle connections pinged");
+    }
+}
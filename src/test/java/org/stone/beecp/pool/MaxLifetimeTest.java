@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+import org.stone.beecp.factory.SwitchableConnectionFactory;
+
+import java.sql.Connection;
+
+public class MaxLifetimeTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(long maxLifetime) throws Exception {
+        initPool(maxLifetime, 0L);
+    }
+
+    private void initPool(long maxLifetime, long idleTimeout) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        if (idleTimeout > 0L) config.setIdleTimeout(idleTimeout);
+        config.setInitialSize(1);
+        config.setMaxActive(1);
+        config.setMaxLifetime(maxLifetime);
+        config.setTimerCheckInterval(100L);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void testRetireTimeJittered() throws Exception {
+        initPool(1000L);
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            long lifetime = p.retireTime - p.creationTime;
+            if (lifetime > 1000L || lifetime < 900L) throw new TestException("Retire time out of jitter range");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testIdleConnectionReplaced() throws Exception {
+        initPool(300L);
+        PooledConnection p1;
+        Connection con = pool.getConnection();
+        try {
+            p1 = ((ProxyConnectionBase) con).p;
+        } finally {
+            con.close();
+        }
+
+        Thread.sleep(600L);//over max lifetime,retired by timer check
+        if (pool.getTotalSize() != 1) throw new TestException("Size of pooled connections changed after retirement");
+        if (p1.state != ConnectionPoolStatics.CON_CLOSED) throw new TestException("Expired idle connection not retired");
+
+        con = pool.getConnection();
+        try {
+            if (((ProxyConnectionBase) con).p == p1) throw new TestException("Expired connection not replaced");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testExpiredConnectionKeptWhenReplacementFailed() throws Exception {
+        SwitchableConnectionFactory factory = new SwitchableConnectionFactory();
+        BeeDataSourceConfig config = new BeeDataSourceConfig();
+        config.setRawConnectionFactory(factory);
+        config.setInitialSize(1);
+        config.setMaxActive(1);
+        config.setMaxLifetime(300L);
+        config.setTimerCheckInterval(100L);
+        pool = new FastConnectionPool();
+        pool.init(config);
+
+        PooledConnection p1;
+        Connection con = pool.getConnection();
+        try {
+            p1 = ((ProxyConnectionBase) con).p;
+        } finally {
+            con.close();
+        }
+
+        factory.setDown(true);
+        Thread.sleep(600L);//over max lifetime,replacement failed
+        if (pool.getTotalSize() != 1) throw new TestException("Expired connection removed after replacement failed");
+        con = pool.getConnection();
+        try {
+            if (((ProxyConnectionBase) con).p != p1) throw new TestException("Expired connection not borrowable");
+        } finally {
+            con.close();
+        }
+
+        factory.setDown(false);
+        Thread.sleep(300L);//replaced at next scan
+        if (p1.state != ConnectionPoolStatics.CON_CLOSED) throw new TestException("Expired connection not replaced after recovery");
+        if (pool.getTotalSize() != 1) throw new TestException("Size of pooled connections changed after retirement");
+    }
+
+    public void testIdleTimeoutConnectionRemovedNotReplaced() throws Exception {
+        initPool(300L, 300L);
+        PooledConnection p1;
+        Connection con = pool.getConnection();
+        try {
+            p1 = ((ProxyConnectionBase) con).p;
+        } finally {
+            con.close();
+        }
+
+        Thread.sleep(500L);//over idle timeout and max lifetime
+        if (p1.state != ConnectionPoolStatics.CON_CLOSED) throw new TestException("Idle timeout connection not removed");
+        if (pool.getTotalSize() != 0) throw new TestException("Idle timeout connection replaced");
+    }
+
+    public void testBorrowedConnectionReplacedOnReturn() throws Exception {
+        initPool(200L);
+        Connection con = pool.getConnection();
+        PooledConnection p1 = ((ProxyConnectionBase) con).p;
+        try {
+            Thread.sleep(400L);//expired in using
+            if (p1.state != ConnectionPoolStatics.CON_USING) throw new TestException("Borrowed connection retired");
+        } finally {
+            con.close();
+        }
+
+        con = pool.getConnection();
+        try {
+            if (((ProxyConnectionBase) con).p == p1) throw new TestException("Expired connection not replaced on return");
+            if (pool.getTotalSize() != 1) throw new TestException("Size of pooled connections changed after retirement");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testNotRetiredByDefault() throws Exception {
+        initPool(0L);
+        Connection con = pool.getConnection();
+        try {
+            if (((ProxyConnectionBase) con).p.retireTime != Long.MAX_VALUE)
+                throw new TestException("Connection retired without max lifetime");
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+import org.stone.beecp.mock.MockBase;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+public class OpenStatementRegisterTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testUnregisterInAnyOrder() throws Exception {
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        Statement[] statements = new Statement[100];
+        Statement[] raws = new Statement[statements.length];
+        try {
+            for (int i = 0; i < statements.length; i++) {
+                statements[i] = con.createStatement();
+                raws[i] = ((ProxyStatementBase) statements[i]).raw;
+            }
+            TestUtil.assertError("open statement count expect value:%s,actual value:%s", 100, p.openStmSize);
+
+            for (int i = 0; i < statements.length; i += 3)//close from head,middle and tail
+                statements[i].close();
+            statements[statements.length - 2].close();
+            TestUtil.assertError("open statement count expect value:%s,actual value:%s", 65, p.openStmSize);
+            for (Statement s : statements) {
+                ProxyStatementBase proxy = (ProxyStatementBase) s;
+                if (proxy.isClosed() != (proxy.openIndex < 0)) throw new TestException();
+            }
+        } finally {
+            con.close();//remaining statements closed with connection
+        }
+        TestUtil.assertError("open statement count expect value:%s,actual value:%s", 0, p.openStmSize);
+        for (Statement raw : raws) {
+            if (!((MockBase) raw).isClosed()) throw new TestException();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+public class PoolClockTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(long clockResolution) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setClockResolution(clockResolution);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    private long executeAndGetAccessTime(Connection con) throws Exception {
+        Statement st = con.createStatement();
+        try {
+            st.execute("select 1");
+        } finally {
+            st.close();
+        }
+        return ((ProxyConnectionBase) con).getLassAccessTime();
+    }
+
+    public void testCoarseClockBetweenTicks() throws Exception {
+        initPool(60000L);
+        Connection con = pool.getConnection();
+        try {
+            long time1 = executeAndGetAccessTime(con);
+            Thread.sleep(50L);
+            long time2 = executeAndGetAccessTime(con);
+            if (time2 != time1) throw new TestException("Access time changed between two ticks of pool clock");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testCoarseClockTicking() throws Exception {
+        initPool(10L);
+        Connection con = pool.getConnection();
+        try {
+            long time1 = executeAndGetAccessTime(con);
+            Thread.sleep(100L);
+            long time2 = executeAndGetAccessTime(con);
+            if (time2 <= time1) throw new TestException("Pool clock not ticking");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testSystemClockWithoutResolution() throws Exception {
+        initPool(0L);
+        Connection con = pool.getConnection();
+        try {
+            long time1 = executeAndGetAccessTime(con);
+            Thread.sleep(20L);
+            long time2 = executeAndGetAccessTime(con);
+            if (time2 <= time1) throw new TestException("System clock not read on execution");
+        } finally {
+            con.close();
+        }
+    }
+}
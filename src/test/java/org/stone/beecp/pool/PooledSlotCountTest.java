@@ -0,0 +1,79 @@
+/*
+ * Copyright(C) Chris2018998
+ * Contact:Chris2018998@tom.com
+ *
+ * Licensed under GNU Lesser General Public License v2.1
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+
+public class PooledSlotCountTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(2);
+        config.setMaxActive(4);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testCountOnBorrowAndReturn() throws Exception {
+        Connection con1 = pool.getConnection();
+        Connection con2 = pool.getConnection();
+        Connection con3 = pool.getConnection();
+        TestUtil.assertError("Total connections expected:%s,current is:%s", 3, pool.getTotalSize());
+        TestUtil.assertError("Idle connections expected:%s,current is:%s", 0, pool.getIdleSize());
+        TestUtil.assertError("Using connections expected:%s,current is:%s", 3, pool.getUsingSize());
+
+        con1.close();
+        con2.close();
+        TestUtil.assertError("Idle connections expected:%s,current is:%s", 2, pool.getIdleSize());
+        TestUtil.assertError("Using connections expected:%s,current is:%s", 1, pool.getUsingSize());
+        con3.abort(null);//removed from its slot
+        TestUtil.assertError("Total connections expected:%s,current is:%s", 2, pool.getTotalSize());
+        TestUtil.assertError("Idle connections expected:%s,current is:%s", 2, pool.getIdleSize());
+        TestUtil.assertError("Using connections expected:%s,current is:%s", 0, pool.getUsingSize());
+    }
+
+    public void testIdleSearchOverBitmapWords() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(130);//three words in bitmap index
+        config.setMaxActive(130);
+        config.setBorrowSemaphoreSize(130);
+        pool.clear(true, config);
+
+        Connection[] cons = new Connection[130];
+        for (int i = 0; i < cons.length; i++)
+            cons[i] = pool.getConnection();
+        TestUtil.assertError("Idle connections expected:%s,current is:%s", 0, pool.getIdleSize());
+        for (Connection con : cons)
+            con.close();
+        TestUtil.assertError("Idle connections expected:%s,current is:%s", 130, pool.getIdleSize());
+
+        for (int i = 0; i < cons.length; i++)//all idle connections reachable from index,no new creation
+            cons[i] = pool.getConnection();
+        TestUtil.assertError("Total connections expected:%s,current is:%s", 130, pool.getTotalSize());
+        for (Connection con : cons)
+            con.close();
+    }
+
+    public void testSlotsResizedOnRestart() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(6);
+        config.setMaxActive(6);
+        pool.clear(true, config);
+        TestUtil.assertError("Total connections expected:%s,current is:%s", 6, pool.getTotalSize());
+        TestUtil.assertError("Idle connections expected:%s,current is:%s", 6, pool.getIdleSize());
+    }
+}
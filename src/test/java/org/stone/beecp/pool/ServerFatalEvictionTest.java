@@ -0,0 +1,115 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.stone.beecp.pool.ConnectionPoolStatics.CON_CLOSED;
+
+public class ServerFatalEvictionTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(boolean enableServerFatalEviction) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(3);
+        config.setMaxActive(3);
+        config.setEnableServerFatalEviction(enableServerFatalEviction);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void testServerFatalErrorTables() throws Exception {
+        SQLException mysqlShutdown = new SQLException("Server shutdown in progress", "08S01", 1053);
+        SQLException pgShutdown = new SQLException("terminating connection due to administrator command", "57P01");
+        SQLException oracleShutdown = new SQLException("ORACLE initialization or shutdown in progress", "08000", 1033);
+        SQLException syntaxError = new SQLException("syntax error", "42000", 1064);
+
+        if (!ServerFatalErrors.forProduct("MySQL").isServerFatal(mysqlShutdown))
+            throw new TestException("MySQL server shutdown not a server-wide fatal error");
+        if (!ServerFatalErrors.forProduct("PostgreSQL").isServerFatal(pgShutdown))
+            throw new TestException("PostgreSQL admin shutdown not a server-wide fatal error");
+        if (!ServerFatalErrors.forProduct("Oracle").isServerFatal(oracleShutdown))
+            throw new TestException("Oracle shutdown not a server-wide fatal error");
+        if (!ServerFatalErrors.forProduct(null).isServerFatal(pgShutdown))
+            throw new TestException("Admin shutdown state not a server-wide fatal error");
+        if (ServerFatalErrors.forProduct("MySQL").isServerFatal(syntaxError))
+            throw new TestException("Syntax error is a server-wide fatal error");
+
+        //link failures on one connection(socket or read timeout)
+        if (ServerFatalErrors.forProduct("MySQL").isServerFatal(new SQLException("Lost connection", "08S01", 2013)))
+            throw new TestException("MySQL lost connection is a server-wide fatal error");
+        if (ServerFatalErrors.forProduct("Oracle").isServerFatal(new SQLException("end-of-file on communication channel", "08000", 3113)))
+            throw new TestException("Oracle end-of-file is a server-wide fatal error");
+        if (ServerFatalErrors.forProduct("Oracle").isServerFatal(new SQLException("IO Error", "08006", 17002)))
+            throw new TestException("Oracle io error is a server-wide fatal error");
+        if (ServerFatalErrors.forProduct(null).isServerFatal(new SQLException("Communications link failure", "08S01")))
+            throw new TestException("Communication link failure is a server-wide fatal error");
+    }
+
+    public void testEvictOlderConnections() throws Exception {
+        initPool(true);
+        Connection con1 = pool.getConnection();
+        Connection con2 = pool.getConnection();
+        Connection con3 = pool.getConnection();
+        PooledConnection p1 = ((ProxyConnectionBase) con1).p;
+        PooledConnection p2 = ((ProxyConnectionBase) con2).p;
+        PooledConnection p3 = ((ProxyConnectionBase) con3).p;
+        con2.close();//idle
+
+        try {
+            p1.checkSQLException(new SQLException("terminating connection due to administrator command", "57P01"));
+            Thread.sleep(300L);//wait background replacement
+            if (p1.state != CON_CLOSED) throw new TestException("Connection seeing fatal error not removed");
+            if (p2.state != CON_CLOSED) throw new TestException("Idle connection of older generation not evicted");
+            if (p3.state == CON_CLOSED) throw new TestException("Borrowed connection closed before return");
+        } finally {
+            con1.close();
+            con3.close();
+        }
+
+        Thread.sleep(300L);
+        if (p3.state != CON_CLOSED) throw new TestException("Borrowed connection of older generation not evicted on return");
+        if (pool.getTotalSize() != 2) throw new TestException("Evicted connections not replaced");
+
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            if (p.generation != 1) throw new TestException("Generation of new connection not increased");
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testNotEvictedByDefault() throws Exception {
+        initPool(false);
+        Connection con1 = pool.getConnection();
+        Connection con2 = pool.getConnection();
+        PooledConnection p2 = ((ProxyConnectionBase) con2).p;
+        con2.close();
+
+        try {
+            ((ProxyConnectionBase) con1).p.checkSQLException(new SQLException("terminating connection due to administrator command", "57P01"));
+            Thread.sleep(200L);
+            if (p2.state == CON_CLOSED) throw new TestException("Idle connection evicted without configuration");
+        } finally {
+            con1.close();
+        }
+    }
+}
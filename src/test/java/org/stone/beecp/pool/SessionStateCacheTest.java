@@ -0,0 +1,104 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+
+public class SessionStateCacheTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    private void initPool(boolean enableSessionStateCache) throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setEnableSessionStateCache(enableSessionStateCache);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void testGetterReadCachedValue() throws Exception {
+        initPool(true);
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            boolean readOnly = con.isReadOnly();
+            int level = con.getTransactionIsolation();
+            p.rawConn.setReadOnly(!readOnly);//change behind proxy
+            p.rawConn.setTransactionIsolation(level + 1);
+            if (con.isReadOnly() != readOnly) throw new TestException();
+            if (con.getTransactionIsolation() != level) throw new TestException();
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testSetSameValueSkipped() throws Exception {
+        initPool(true);
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            boolean readOnly = con.isReadOnly();
+            p.rawConn.setReadOnly(!readOnly);//change behind proxy
+            con.setReadOnly(readOnly);//same to cached value,not reach driver
+            if (p.rawConn.isReadOnly() == readOnly) throw new TestException();
+
+            con.setCatalog("test");
+            p.rawConn.setCatalog("other");
+            con.setCatalog("test");
+            if (!"other".equals(p.rawConn.getCatalog())) throw new TestException();
+            if (!"test".equals(con.getCatalog())) throw new TestException();
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testCacheRefreshedAfterReset() throws Exception {
+        initPool(true);
+        Connection con = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con).p;
+        try {
+            con.setReadOnly(!p.defaultReadOnly);
+            if (p.rawConn.isReadOnly() == p.defaultReadOnly) throw new TestException();
+        } finally {
+            con.close();//reset to default
+        }
+
+        con = pool.getConnection();
+        try {
+            if (con.isReadOnly() != p.defaultReadOnly) throw new TestException();
+            if (p.rawConn.isReadOnly() != p.defaultReadOnly) throw new TestException();
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testGetterReadDriverWhenCacheDisabled() throws Exception {
+        initPool(false);
+        Connection con = pool.getConnection();
+        try {
+            PooledConnection p = ((ProxyConnectionBase) con).p;
+            boolean readOnly = con.isReadOnly();
+            p.rawConn.setReadOnly(!readOnly);
+            if (con.isReadOnly() == readOnly) throw new TestException();
+            con.setReadOnly(readOnly);
+            if (p.rawConn.isReadOnly() != readOnly) throw new TestException();
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+public class StaleProxyTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testStaleCloseNotAffectNextBorrower() throws Exception {
+        Connection con1 = pool.getConnection();
+        PooledConnection p = ((ProxyConnectionBase) con1).p;
+        con1.close();
+
+        Connection con2 = pool.getConnection();
+        try {
+            if (((ProxyConnectionBase) con2).p != p) throw new TestException();
+            con1.close();//second close on a stale proxy
+            if (con2.isClosed()) throw new TestException("Next borrower closed by stale proxy");
+            if (p.state != ConnectionPoolStatics.CON_USING) throw new TestException();
+            con2.createStatement().close();
+
+            try {
+                con1.setAutoCommit(!p.curAutoCommit);
+                throw new TestException("Stale proxy changed connection of next borrower");
+            } catch (SQLException e) {
+                if (!TestUtil.containsMessage(e, "No operations allowed after connection closed")) throw e;
+            }
+        } finally {
+            con2.close();
+        }
+    }
+
+    public void testStaleMetaData() throws Exception {
+        Connection con1 = pool.getConnection();
+        DatabaseMetaData metaData = con1.getMetaData();
+        con1.close();
+
+        Connection con2 = pool.getConnection();
+        try {
+            try {
+                metaData.getConnection();//created on previous borrow
+                throw new TestException("Stale metadata not detected");
+            } catch (SQLException e) {
+                if (!TestUtil.containsMessage(e, "No operations allowed after connection closed")) throw e;
+            }
+            if (con2.getMetaData().getConnection() != con2) throw new TestException();
+        } finally {
+            con2.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+import org.stone.beecp.mock.MockBase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+public class StatementCacheTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setStatementCacheSize(2);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    private static Statement rawOf(Statement ps) {
+        return ((ProxyStatementBase) ps).raw;
+    }
+
+    public void testReuseAfterClose() throws Exception {
+        Connection con = pool.getConnection();
+        try {
+            PreparedStatement ps1 = con.prepareStatement("select 1");
+            Statement raw1 = rawOf(ps1);
+            ps1.close();
+            PreparedStatement ps2 = con.prepareStatement("select 1");
+            if (rawOf(ps2) != raw1) throw new TestException();
+            if (((MockBase) raw1).isClosed()) throw new TestException();
+
+            PreparedStatement ps3 = con.prepareStatement("select 1", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            if (rawOf(ps3) == raw1) throw new TestException();//different key
+            ps2.close();
+            ps3.close();
+        } finally {
+            con.close();
+        }
+
+        BeeConnectionPoolMonitorVo vo = pool.getPoolMonitorVo();
+        TestUtil.assertError("statement cache hit count expect value:%s,actual value:%s", 1L, vo.getStatementCacheHitCount());
+        TestUtil.assertError("statement cache miss count expect value:%s,actual value:%s", 2L, vo.getStatementCacheMissCount());
+    }
+
+    public void testChangedStatementNotCached() throws Exception {
+        Connection con = pool.getConnection();
+        try {
+            PreparedStatement ps = con.prepareStatement("select 1");
+            ps.setMaxRows(10);
+            Statement raw = rawOf(ps);
+            ps.close();
+            if (!((MockBase) raw).isClosed()) throw new TestException();
+
+            ps = con.prepareStatement("select 1");
+            if (rawOf(ps) == raw) throw new TestException();
+            if (ps.getMaxRows() != 0) throw new TestException();
+            ps.close();
+        } finally {
+            con.close();
+        }
+    }
+
+    public void testNotPoolableAndEviction() throws Exception {
+        Connection con = pool.getConnection();
+        try {
+            PreparedStatement ps = con.prepareStatement("select 1");
+            ps.setPoolable(false);
+            Statement raw = rawOf(ps);
+            ps.close();
+            if (!((MockBase) raw).isClosed()) throw new TestException();
+
+            Statement[] raws = new Statement[3];
+            for (int i = 0; i < raws.length; i++) {
+                ps = con.prepareStatement("select " + i);
+                raws[i] = rawOf(ps);
+                ps.close();
+            }
+            int closedCount = 0;//one of the two older statements evicted by admission policy
+            for (Statement rawStm : raws)
+                if (((MockBase) rawStm).isClosed()) closedCount++;
+            TestUtil.assertError("evicted statement count expect value:%s,actual value:%s", 1, closedCount);
+            if (((MockBase) raws[2]).isClosed()) throw new TestException();//latest one in window
+            TestUtil.assertError("statement cache eviction count expect value:%s,actual value:%s", 1L, pool.getPoolMonitorVo().getStatementCacheEvictionCount());
+
+            con.abort(null);//cached statements closed with connection removed
+            if (!((MockBase) raws[2]).isClosed()) throw new TestException();
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * Copyright(C) Chris2018998,All rights reserved.
+ *
+ * Project owner contact:Chris2018998@tom.com.
+ *
+ * Project Licensed under Apache License v2.0.
+ */
+package org.stone.beecp.pool;
+
+import junit.framework.TestCase;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class ThreadLocalCacheTest extends TestCase {
+    private FastConnectionPool pool;
+
+    public void setUp() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(4);
+        config.setThreadLocalCacheSize(2);
+        pool = new FastConnectionPool();
+        pool.init(config);
+    }
+
+    public void tearDown() {
+        pool.close();
+    }
+
+    public void testHoldTwoCachedConnections() throws Exception {
+        Connection con1 = pool.getConnection();
+        Connection con2 = pool.getConnection();
+        con1.close();
+        con2.close();
+
+        BeeConnectionPoolMonitorVo vo = pool.getPoolMonitorVo();
+        TestUtil.assertError("thread local hit count expect value:%s,actual value:%s", 0L, vo.getThreadLocalHitCount());
+        TestUtil.assertError("thread local miss count expect value:%s,actual value:%s", 2L, vo.getThreadLocalMissCount());
+
+        Connection con3 = null;
+        Connection con4 = null;
+        try {
+            con3 = pool.getConnection();
+            con4 = pool.getConnection();//second one also from cache
+            vo = pool.getPoolMonitorVo();
+            TestUtil.assertError("thread local hit count expect value:%s,actual value:%s", 2L, vo.getThreadLocalHitCount());
+            TestUtil.assertError("thread local miss count expect value:%s,actual value:%s", 2L, vo.getThreadLocalMissCount());
+            TestUtil.assertError("total size expect value:%s,actual value:%s", 2, pool.getTotalSize());
+        } finally {
+            if (con3 != null) ConnectionPoolStatics.oclose(con3);
+            if (con4 != null) ConnectionPoolStatics.oclose(con4);
+        }
+    }
+
+    public void testBorrowWithoutThreadLocal() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(1);
+        config.setMaxWait(3000);
+        config.setEnableThreadLocal(false);
+        FastConnectionPool pool2 = new FastConnectionPool();
+        pool2.init(config);
+
+        try {
+            Connection con1 = pool2.getConnection();
+            new ConnectionCloseThread(con1).start();
+            Connection con2 = pool2.getConnection();//transferred from close thread
+            con2.close();
+
+            BeeConnectionPoolMonitorVo vo = pool2.getPoolMonitorVo();
+            TestUtil.assertError("thread local hit count expect value:%s,actual value:%s", 0L, vo.getThreadLocalHitCount());
+            TestUtil.assertError("thread local miss count expect value:%s,actual value:%s", 0L, vo.getThreadLocalMissCount());
+        } finally {
+            pool2.close();
+        }
+    }
+
+    private static class ConnectionCloseThread extends Thread {
+        private final Connection con;
+
+        ConnectionCloseThread(Connection con) {
+            this.con = con;
+        }
+
+        public void run() {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(500));
+            ConnectionPoolStatics.oclose(con);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.stone.beecp.pool2;
+
+import junit.framework.TestCase;
+import org.stone.base.TestUtil;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.config.ConfigFactory;
+import org.stone.beecp.factory.ConcurrentCountConnectionFactory;
+import org.stone.beecp.pool.FastConnectionPool;
+
+public class AdaptiveSemaphoreTest extends TestCase {
+
+    public void testIncreaseOnWaitingWithCapacity() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(2);
+        config.setBorrowSemaphoreSize(1);
+        config.setMaxConcurrentCreation(2);
+        config.setEnableAdaptiveSemaphore(true);
+        config.setSemaphoreAdjustInterval(50L);
+        config.setRawConnectionFactory(new ConcurrentCountConnectionFactory(2));//two creators must arrive together
+
+        FastConnectionPool pool = new FastConnectionPool();
+        pool.init(config);
+        try {
+            ConnectionCreateTest.PoolMockThreadOnCreateLock[] threads = new ConnectionCreateTest.PoolMockThreadOnCreateLock[2];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new ConnectionCreateTest.PoolMockThreadOnCreateLock(pool);
+                threads[i].start();
+            }
+            for (ConnectionCreateTest.PoolMockThreadOnCreateLock thread : threads)
+                thread.join();
+
+            BeeConnectionPoolMonitorVo vo = pool.getPoolMonitorVo();
+            TestUtil.assertError("total size expect value:%s,actual value:%s", 2, pool.getTotalSize());
+            TestUtil.assertError("semaphore size expect value:%s,actual value:%s", 2, vo.getBorrowSemaphoreSize());
+            TestUtil.assertError("semaphore increased count expect value:%s,actual value:%s", 1L, vo.getSemaphoreIncreasedCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testFixedWithoutAdaptiveMode() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(4);
+        config.setBorrowSemaphoreSize(3);
+        FastConnectionPool pool = new FastConnectionPool();
+        pool.init(config);
+        try {
+            BeeConnectionPoolMonitorVo vo = pool.getPoolMonitorVo();
+            TestUtil.assertError("semaphore size expect value:%s,actual value:%s", 3, vo.getBorrowSemaphoreSize());
+            TestUtil.assertError("semaphore increased count expect value:%s,actual value:%s", 0L, vo.getSemaphoreIncreasedCount());
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -113,6 +113,31 @@ public class ConnectionCreateTest extends TestCase {
     }
 
 
+    public void testConcurrentCreation() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setMaxActive(3);
+        config.setBorrowSemaphoreSize(3);
+        config.setMaxConcurrentCreation(3);
+        config.setRawConnectionFactory(new ConcurrentCountConnectionFactory(3));
+
+        FastConnectionPool pool = new FastConnectionPool();
+        pool.init(config);
+
+        PoolMockThreadOnCreateLock[] threads = new PoolMockThreadOnCreateLock[3];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new PoolMockThreadOnCreateLock(pool);
+            threads[i].start();
+        }
+        for (PoolMockThreadOnCreateLock thread : threads)
+            thread.join();
+
+        try {
+            TestUtil.assertError("total size expect value:%s,actual value:%s", 3, pool.getTotalSize());
+        } finally {
+            pool.close();
+        }
+    }
+
     public void testInitialFailedConnectionASync() throws Exception {
         BeeDataSourceConfig config = ConfigFactory.createDefault();
         config.setInitialSize(1);
@@ -15,6 +15,7 @@ import org.stone.base.TestUtil;
 import org.stone.beecp.BeeDataSourceConfig;
 import org.stone.beecp.JdbcConfig;
 import org.stone.beecp.config.ConfigFactory;
+import org.stone.beecp.factory.ConcurrentCountConnectionFactory;
 import org.stone.beecp.pool.FastConnectionPool;
 import org.stone.beecp.pool.exception.PoolInitializeFailedException;
 
@@ -109,6 +110,39 @@ public class PoolInitializationTest extends TestCase {
     }
 
 
+    public void testCreateInitialConnectionInParallel() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(4);
+        config.setMaxConcurrentCreation(4);
+        config.setRawConnectionFactory(new ConcurrentCountConnectionFactory(4));
+        FastConnectionPool pool = new FastConnectionPool();
+        pool.init(config);
+
+        try {
+            TestUtil.assertError("total size expect value:%s,actual value:%s", 4, pool.getTotalSize());
+        } finally {
+            pool.close();
+        }
+    }
+
+    public void testAwaitConnectionReadyInAsynMode() throws Exception {
+        BeeDataSourceConfig config = ConfigFactory.createDefault();
+        config.setInitialSize(4);
+        config.setMaxConcurrentCreation(4);
+        config.setAsyncCreateInitConnection(true);
+        config.setRawConnectionFactory(new ConcurrentCountConnectionFactory(4));
+        FastConnectionPool pool = new FastConnectionPool();
+        pool.init(config);
+
+        try {
+            if (!pool.awaitConnectionReady(2, 3000L)) throw new TestException();
+            if (!pool.awaitConnectionReady(4, 3000L)) throw new TestException();
+            if (pool.awaitConnectionReady(5, 100L)) throw new TestException();
+        } finally {
+            pool.close();
+        }
+    }
+
     public void testTimeoutOnCreateLock() throws Exception {
         BeeDataSourceConfig config = ConfigFactory.createDefault();
         config.setInitialSize(1);
@@ -0,0 +1,105 @@
+/*
+ * Copyright(C) Chris2018998
+ * Contact:Chris2018998@tom.com
+ *
+ * Licensed under GNU Lesser General Public License v2.1
+ */
+package org.stone.tools;
+
+import junit.framework.TestCase;
+import org.stone.base.TestException;
+import org.stone.base.TestUtil;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WTinyLfuCacheTest extends TestCase {
+
+    public void testBoundAndRemovalNotification() {
+        final AtomicInteger evictedCount = new AtomicInteger();
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<Integer, String>(10, 1, new WTinyLfuCache.RemovalListener<Integer, String>() {
+            public void onRemoval(Integer key, String value) {
+                evictedCount.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 50; i++)
+            cache.put(i, "v" + i);
+        TestUtil.assertError("cache size expect value:%s,actual value:%s", 10, cache.size());
+        TestUtil.assertError("evicted count expect value:%s,actual value:%s", 40, evictedCount.get());
+
+        String old = cache.put(49, "new");//replaced,not evicted
+        TestUtil.assertError("replaced value expect value:%s,actual value:%s", "v49", old);
+        TestUtil.assertError("removed value expect value:%s,actual value:%s", "new", cache.remove(49));
+        TestUtil.assertError("evicted count expect value:%s,actual value:%s", 40, evictedCount.get());
+
+        cache.clear();
+        TestUtil.assertError("cache size expect value:%s,actual value:%s", 0, cache.size());
+    }
+
+    public void testFrequentKeySurvivesScan() throws Exception {
+        WTinyLfuCache<Integer, Integer> cache = new WTinyLfuCache<Integer, Integer>(100, 1, null);
+        for (int i = 0; i < 10; i++)
+            cache.put(i, i);
+        for (int n = 0; n < 10; n++) {
+            for (int i = 0; i < 10; i++)
+                cache.get(i);
+        }
+
+        for (int i = 1000; i < 1800; i++)//one-hit keys(less than sample size of sketch aging)
+            cache.put(i, i);
+        for (int i = 0; i < 10; i++) {
+            if (cache.get(i) == null) throw new TestException("Frequent key[" + i + "] was evicted by scan");
+        }
+    }
+
+    public void testAdmissionByWindowCandidate() throws Exception {
+        WTinyLfuCache<Integer, Integer> cache = new WTinyLfuCache<Integer, Integer>(100, 1, null);
+        for (int i = 0; i < 100; i++)
+            cache.put(i, i);
+
+        cache.put(500, 500);
+        for (int n = 0; n < 20; n++)
+            cache.get(500);
+        cache.put(501, 501);//hot key evicted from window,admitted into main space
+        if (cache.get(500) == null) throw new TestException("Frequent candidate from window was rejected");
+
+        cache.put(502, 502);//one-hit key evicted from window,rejected by main space
+        if (cache.get(501) != null) throw new TestException("One-hit candidate from window was admitted");
+        TestUtil.assertError("cache size expect value:%s,actual value:%s", 100, cache.size());
+    }
+
+    public void testConcurrentAccess() throws Exception {
+        final int maxSize = 64;
+        final WTinyLfuCache<Integer, Integer> cache = new WTinyLfuCache<Integer, Integer>(maxSize);
+        final CountDownLatch latch = new CountDownLatch(8);
+        final AtomicInteger failedCount = new AtomicInteger();
+
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            Integer key = (i * 31 + seed) % 256;
+                            Integer value = cache.get(key);
+                            if (value == null)
+                                cache.put(key, key);
+                            else if (!value.equals(key))
+                                failedCount.incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        failedCount.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+        latch.await();
+
+        TestUtil.assertError("failed count expect value:%s,actual value:%s", 0, failedCount.get());
+        cache.put(-1, -1);//trigger maintenance after all writers
+        if (cache.size() > maxSize) throw new TestException("Cache size exceeded max size:" + cache.size());
+    }
+}